@@ -0,0 +1,369 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Two-level (memory + disk) LRU cache for profile pictures.
+ *
+ * Avatars are downloaded once, resized to the requested dimension and stored as files so the
+ * WebView can load them locally instead of hitting the network on every render. Concurrent
+ * requests for the same url/size are merged into a single download.
+ */
+public class AvatarCache {
+
+  public interface Resizer {
+    /**
+     * Scales the encoded image down so that neither side exceeds {@code size} pixels and
+     * returns the re-encoded bytes.
+     */
+    byte[] resize(byte[] source, int size) throws IOException;
+  }
+
+  public interface Callback {
+    void onAvatarReady(File file);
+
+    void onAvatarFailed(Exception e);
+  }
+
+  private static final int CONNECT_TIMEOUT_MS = 10000;
+  private static final int READ_TIMEOUT_MS = 15000;
+  private static final String FILE_SUFFIX = ".img";
+  // Avatars are small, anything larger is not a profile picture and is not worth caching
+  private static final int MAX_AVATAR_BYTES = 5 * 1024 * 1024;
+
+  private final File directory;
+  private final long maxMemoryBytes;
+  private final long maxDiskBytes;
+  private final Resizer resizer;
+  private final Executor executor;
+
+  private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+  private long memoryBytes;
+
+  private final Map<String, List<Callback>> inFlight = new HashMap<>();
+
+  /**
+   * Downloads and resizes run on {@code executor}, which should be reserved for blocking I/O since
+   * a download can take as long as the HTTP timeouts.
+   */
+  public AvatarCache(File directory, long maxMemoryBytes, long maxDiskBytes, Resizer resizer, Executor executor) {
+    this.directory = directory;
+    this.maxMemoryBytes = maxMemoryBytes;
+    this.maxDiskBytes = maxDiskBytes;
+    this.resizer = resizer;
+    this.executor = executor;
+  }
+
+  /**
+   * Checks a size the plugin was given before it is used for any avatar.
+   *
+   * @throws IllegalArgumentException when {@code size} is not positive
+   */
+  public static void checkSize(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Avatar size must be positive, got " + size);
+    }
+  }
+
+  /**
+   * Checks a url and size the plugin was given before anything is queued for them. Only http(s)
+   * urls are fetched.
+   *
+   * @throws IllegalArgumentException when either is unusable
+   */
+  public static void checkRequest(String url, int size) {
+    checkSize(size);
+    String protocol;
+    String host;
+    try {
+      URL parsed = new URL(url);
+      protocol = parsed.getProtocol();
+      host = parsed.getHost();
+    } catch (MalformedURLException e) {
+      throw new IllegalArgumentException("Avatar url is not a valid url: " + url);
+    }
+    if (!"http".equalsIgnoreCase(protocol) && !"https".equalsIgnoreCase(protocol)) {
+      throw new IllegalArgumentException("Avatar url must use http or https, got " + protocol);
+    }
+    if (host == null || host.isEmpty()) {
+      throw new IllegalArgumentException("Avatar url has no host: " + url);
+    }
+  }
+
+  /**
+   * Returns the cached file for {@code url} at {@code size}, or null when the avatar has not been
+   * fetched yet. Never touches the network.
+   */
+  public File getCached(String url, int size) {
+    String key = keyFor(url, size);
+    File file = fileFor(key);
+
+    byte[] bytes;
+    synchronized (memory) {
+      bytes = memory.get(key);
+    }
+
+    if (bytes != null) {
+      if (file.exists()) {
+        // Keeps the disk LRU order in step with memory hits
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+      }
+      // Disk entry was evicted or cleared by the system, restore it from memory
+      try {
+        writeFile(file, bytes);
+        return file;
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    if (!file.exists()) {
+      return null;
+    }
+
+    // Promote disk hits so the next lookup is answered from memory
+    file.setLastModified(System.currentTimeMillis());
+    try (InputStream in = new FileInputStream(file)) {
+      putInMemory(key, readFully(in, MAX_AVATAR_BYTES));
+    } catch (IOException e) {
+      // Still usable from disk
+    }
+    return file;
+  }
+
+  /**
+   * Makes sure the avatar is cached and reports the local file through {@code callback}. The
+   * download and resize run on the cache executor; identical concurrent requests share one fetch.
+   */
+  public void prefetch(String url, int size, Callback callback) {
+    File cached = getCached(url, size);
+    if (cached != null) {
+      if (callback != null) {
+        callback.onAvatarReady(cached);
+      }
+      return;
+    }
+
+    String key = keyFor(url, size);
+    synchronized (inFlight) {
+      List<Callback> waiters = inFlight.get(key);
+      if (waiters != null) {
+        if (callback != null) {
+          waiters.add(callback);
+        }
+        return;
+      }
+
+      // A fetch may have completed between the lookup above and taking the lock
+      cached = getCached(url, size);
+      if (cached != null) {
+        if (callback != null) {
+          callback.onAvatarReady(cached);
+        }
+        return;
+      }
+
+      waiters = new ArrayList<>();
+      if (callback != null) {
+        waiters.add(callback);
+      }
+      inFlight.put(key, waiters);
+    }
+
+    try {
+      executor.execute(() -> {
+        File file = null;
+        Exception error = null;
+        try {
+          file = load(key, url, size);
+        } catch (Exception e) {
+          error = e;
+        }
+        complete(key, file, error);
+      });
+    } catch (RejectedExecutionException e) {
+      // Fail the waiters rather than leaving them, and any later request for this key, hanging
+      complete(key, null, e);
+    }
+  }
+
+  private void complete(String key, File file, Exception error) {
+    List<Callback> waiters;
+    synchronized (inFlight) {
+      waiters = inFlight.remove(key);
+    }
+    for (Callback waiter : waiters) {
+      if (error == null) {
+        waiter.onAvatarReady(file);
+      } else {
+        waiter.onAvatarFailed(error);
+      }
+    }
+  }
+
+  /**
+   * Drops every cached avatar from memory and disk.
+   */
+  public void clear() {
+    synchronized (memory) {
+      memory.clear();
+      memoryBytes = 0;
+    }
+
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  private File load(String key, String url, int size) throws IOException {
+    byte[] source = download(url);
+    byte[] resized = resizer.resize(source, size);
+
+    File file = fileFor(key);
+    writeFile(file, resized);
+    putInMemory(key, resized);
+    trimDisk();
+    return file;
+  }
+
+  private byte[] download(String url) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+    connection.setReadTimeout(READ_TIMEOUT_MS);
+    connection.setInstanceFollowRedirects(true);
+
+    try {
+      int status = connection.getResponseCode();
+      if (status < 200 || status >= 300) {
+        throw new IOException("Avatar download failed with HTTP " + status);
+      }
+
+      if (connection.getContentLength() > MAX_AVATAR_BYTES) {
+        throw new IOException("Avatar is larger than " + MAX_AVATAR_BYTES + " bytes");
+      }
+
+      try (InputStream in = connection.getInputStream()) {
+        return readFully(in, MAX_AVATAR_BYTES);
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  private void putInMemory(String key, byte[] bytes) {
+    if (bytes.length > maxMemoryBytes) {
+      return;
+    }
+
+    synchronized (memory) {
+      byte[] previous = memory.put(key, bytes);
+      if (previous != null) {
+        memoryBytes -= previous.length;
+      }
+      memoryBytes += bytes.length;
+
+      Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+      while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+        Map.Entry<String, byte[]> eldest = it.next();
+        memoryBytes -= eldest.getValue().length;
+        it.remove();
+      }
+    }
+  }
+
+  private synchronized void trimDisk() {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_SUFFIX));
+    if (files == null) {
+      return;
+    }
+
+    long total = 0;
+    for (File file : files) {
+      total += file.length();
+    }
+    if (total <= maxDiskBytes) {
+      return;
+    }
+
+    Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+    for (File file : files) {
+      if (total <= maxDiskBytes) {
+        break;
+      }
+      long length = file.length();
+      if (file.delete()) {
+        total -= length;
+      }
+    }
+  }
+
+  private void writeFile(File file, byte[] bytes) throws IOException {
+    if (!directory.exists() && !directory.mkdirs()) {
+      throw new IOException("Unable to create avatar cache directory " + directory);
+    }
+
+    File tmp = new File(directory, file.getName() + ".tmp");
+    try (FileOutputStream out = new FileOutputStream(tmp)) {
+      out.write(bytes);
+    }
+    if (!tmp.renameTo(file)) {
+      tmp.delete();
+      throw new IOException("Unable to write avatar cache entry " + file);
+    }
+  }
+
+  private File fileFor(String key) {
+    return new File(directory, key + FILE_SUFFIX);
+  }
+
+  static byte[] readFully(InputStream in, int maxBytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      if (out.size() + read > maxBytes) {
+        throw new IOException("Avatar is larger than " + maxBytes + " bytes");
+      }
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+  private static String keyFor(String url, int size) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      byte[] hash = digest.digest((url + "@" + size).getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder();
+      for (byte b : hash) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      return Integer.toHexString((url + "@" + size).hashCode());
+    }
+  }
+}
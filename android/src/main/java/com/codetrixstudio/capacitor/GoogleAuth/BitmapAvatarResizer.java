@@ -0,0 +1,56 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Downsamples avatars with {@link BitmapFactory} so only a bitmap close to the target size is
+ * ever decoded, then re-encodes it as PNG to keep transparent placeholder images intact.
+ */
+public class BitmapAvatarResizer implements AvatarCache.Resizer {
+
+  @Override
+  public byte[] resize(byte[] source, int size) throws IOException {
+    BitmapFactory.Options bounds = new BitmapFactory.Options();
+    bounds.inJustDecodeBounds = true;
+    BitmapFactory.decodeByteArray(source, 0, source.length, bounds);
+
+    if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+      throw new IOException("Avatar is not a decodable image");
+    }
+
+    int sampleSize = 1;
+    while (bounds.outWidth / (sampleSize * 2) >= size && bounds.outHeight / (sampleSize * 2) >= size) {
+      sampleSize *= 2;
+    }
+
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inSampleSize = sampleSize;
+    Bitmap decoded = BitmapFactory.decodeByteArray(source, 0, source.length, options);
+    if (decoded == null) {
+      throw new IOException("Avatar is not a decodable image");
+    }
+
+    Bitmap scaled = decoded;
+    int longest = Math.max(decoded.getWidth(), decoded.getHeight());
+    if (longest > size) {
+      float ratio = (float) size / longest;
+      int width = Math.max(1, Math.round(decoded.getWidth() * ratio));
+      int height = Math.max(1, Math.round(decoded.getHeight() * ratio));
+      scaled = Bitmap.createScaledBitmap(decoded, width, height, true);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    scaled.compress(Bitmap.CompressFormat.PNG, 100, out);
+
+    if (scaled != decoded) {
+      scaled.recycle();
+    }
+    decoded.recycle();
+
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,92 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs an asynchronous task once a burst of triggers has settled. Triggers that arrive while the
+ * task is still running are dropped, since that run already covers them.
+ */
+public class DebouncedTask {
+
+  public interface Task {
+    /**
+     * Starts the work and calls {@code done} when it has finished.
+     */
+    void run(Runnable done);
+  }
+
+  private final PluginExecutor executor;
+  private final long delayMs;
+  private final Task task;
+
+  private ScheduledFuture<?> pending;
+  private boolean running;
+  private int runCount;
+
+  public DebouncedTask(long delayMs, Task task) {
+    this(PluginExecutor.getDefault(), delayMs, task);
+  }
+
+  /**
+   * The task is started on the background lane of {@code executor}.
+   */
+  public DebouncedTask(PluginExecutor executor, long delayMs, Task task) {
+    this.executor = executor;
+    this.delayMs = delayMs;
+    this.task = task;
+  }
+
+  public synchronized void trigger() {
+    if (pending != null) {
+      pending.cancel(false);
+    }
+    try {
+      pending = executor.schedule(PluginExecutor.Lane.BACKGROUND, this::fire, delayMs);
+    } catch (RejectedExecutionException e) {
+      // The plugin is shutting down and nobody waits on this task
+      pending = null;
+    }
+  }
+
+  public synchronized void cancel() {
+    if (pending != null) {
+      pending.cancel(false);
+      pending = null;
+    }
+  }
+
+  /**
+   * Number of times the task has been started.
+   */
+  public synchronized int getRunCount() {
+    return runCount;
+  }
+
+  private void fire() {
+    synchronized (this) {
+      pending = null;
+      if (running) {
+        return;
+      }
+      running = true;
+      runCount++;
+    }
+
+    AtomicBoolean finished = new AtomicBoolean();
+    Runnable done = () -> {
+      if (finished.compareAndSet(false, true)) {
+        synchronized (DebouncedTask.this) {
+          running = false;
+        }
+      }
+    };
+
+    try {
+      task.run(done);
+    } catch (RuntimeException e) {
+      done.run();
+    }
+  }
+}
@@ -1,12 +1,16 @@
 package com.deldev.capacitor.GoogleAuth;
 
-import android.accounts.Account;
 import android.content.Intent;
 import android.util.Log;
 
 import androidx.activity.result.ActivityResult;
 
 import com.deldev.capacitor.GoogleAuth.capacitorgoogleauth.R;
+import com.deldev.capacitor.GoogleAuth.provider.GoogleAccount;
+import com.deldev.capacitor.GoogleAuth.provider.PlayServicesGoogleIdentityProvider;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+import com.getcapacitor.Bridge;
 import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
@@ -18,10 +22,9 @@ import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
 import com.google.android.gms.auth.api.signin.GoogleSignInClient;
 import com.google.android.gms.auth.api.signin.GoogleSignInOptions;
-import com.google.android.gms.common.api.ApiException;
 import com.google.android.gms.common.api.Scope;
-import com.google.android.gms.tasks.Task;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -30,17 +33,51 @@ import java.util.List;
 public class GoogleAuth extends Plugin {
 
   private static final String TAG = "GoogleAuth";
-  private static final int SIGN_IN_CANCELLED = 12501;
-  private static final int NETWORK_ERROR = 7;
+  private static final int DEFAULT_AVATAR_SIZE = 96;
+  private static final long AVATAR_MEMORY_BYTES = 4 * 1024 * 1024;
+  private static final long AVATAR_DISK_BYTES = 20 * 1024 * 1024;
+  private static final long DEFAULT_RESUME_DEBOUNCE_MS = 1000;
+  private static final String SESSION_REVALIDATED_EVENT = "sessionRevalidated";
 
   private GoogleSignInClient googleSignInClient;
+  private PlayServicesGoogleIdentityProvider googleProvider;
+  private GoogleAuthService googleAuthService;
+
+  // Bounded lanes for callbacks, conversion and background work, shut down with the plugin
+  private final PluginExecutor executor = new PluginExecutor("GoogleAuth");
+
+  private AvatarCache avatarCache;
+  private int avatarSize = DEFAULT_AVATAR_SIZE;
+
+  // Collapses the resume events of a foreground transition into one background session check
+  private DebouncedTask resumeRevalidation;
+
+  // Last published sessionRevalidated event, for listeners added after it fired; cleared on sign-out
+  private final LastSessionCheck<JSObject> lastSessionCheck = new LastSessionCheck<>();
 
   @Override
   public void load() {
     Log.d(TAG, "Plugin loaded");
   }
 
-  private void loadSignInClient(String clientId, boolean forceCodeForRefreshToken, String[] scopeArray) {
+  @Override
+  protected void handleOnResume() {
+    super.handleOnResume();
+    if (resumeRevalidation != null) {
+      resumeRevalidation.trigger();
+    }
+  }
+
+  @Override
+  protected void handleOnDestroy() {
+    if (resumeRevalidation != null) {
+      resumeRevalidation.cancel();
+    }
+    executor.shutdown();
+    super.handleOnDestroy();
+  }
+
+  private void loadSignInClient(String clientId, boolean forceCodeForRefreshToken, String[] scopeArray, long silentSignInTimeoutMs) {
     try {
       GoogleSignInOptions.Builder builder = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN)
           .requestIdToken(clientId)
@@ -73,6 +110,10 @@ public class GoogleAuth extends Plugin {
       }
 
       googleSignInClient = GoogleSignIn.getClient(getContext(), builder.build());
+      googleProvider = new PlayServicesGoogleIdentityProvider(getContext(), googleSignInClient, this::launchSignInIntent,
+          executor.lane(PluginExecutor.Lane.USER));
+      googleAuthService = new GoogleAuthService(googleProvider, executor);
+      googleAuthService.setSilentSignInTimeout(silentSignInTimeoutMs);
       Log.d(TAG, "GoogleSignInClient initialized successfully");
     } catch (Exception e) {
       Log.e(TAG, "Error initializing GoogleSignInClient", e);
@@ -117,8 +158,14 @@ public class GoogleAuth extends Plugin {
         call.reject("Client ID is required");
         return;
       }
+      if (rejectInvalidAvatarCache(call)) {
+        return;
+      }
 
-      loadSignInClient(clientId, forceCodeForRefreshToken, scopeArray);
+      long silentSignInTimeoutMs = call.getLong("silentSignInTimeout", GoogleAuthService.DEFAULT_SILENT_SIGN_IN_TIMEOUT_MS);
+      loadSignInClient(clientId, forceCodeForRefreshToken, scopeArray, silentSignInTimeoutMs);
+      configureAvatarCache(call);
+      configureResumeRevalidation(call);
       call.resolve();
     } catch (Exception e) {
       Log.e(TAG, "Error in initialize", e);
@@ -145,78 +192,59 @@ public class GoogleAuth extends Plugin {
 
   @PluginMethod
   public void signIn(PluginCall call) {
-    if (googleSignInClient == null) {
+    if (googleAuthService == null) {
       call.reject("Google services are not ready. Please call initialize() first");
       return;
     }
 
-    // Check if user is already signed in
-    GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(getContext());
-    if (account != null) {
-      Log.d(TAG, "User already signed in, using existing account");
-      resolveWithAccount(call, account);
+    googleAuthService.signIn(call, new ProviderCallback<GoogleSignInResult>() {
+      @Override
+      public void onSuccess(GoogleSignInResult result) {
+        Log.d(TAG, "Signed in from " + result.getTier().getLabel() + " tier");
+        resolveWithAccount(call, result.getAccount(), result.getTier());
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        Log.e(TAG, "Sign-in failed: " + error.getMessage(), error);
+        rejectWith(call, error);
+      }
+    });
+  }
+
+  private void launchSignInIntent(Intent signInIntent) {
+    // Only a call waiting on the picker may host it, a call still in the silent tier can complete first
+    GoogleAuthService service = googleAuthService;
+    PluginCall host = service != null ? (PluginCall) service.getInteractiveHost() : null;
+
+    if (host == null) {
+      Log.e(TAG, "launchSignInIntent: no pending sign-in call");
+      googleProvider.onSignInResult(null);
       return;
     }
 
-    Intent signInIntent = googleSignInClient.getSignInIntent();
-    saveCall(call);
-    startActivityForResult(call, signInIntent, "signInResult");
+    saveCall(host);
+    startActivityForResult(host, signInIntent, "signInResult");
   }
 
   @ActivityCallback
   private void signInResult(PluginCall call, ActivityResult result) {
     if (call == null) {
       Log.e(TAG, "signInResult: call is null");
-      return;
-    }
-
-    if (result.getData() == null) {
-      call.reject("Sign-in failed: No data returned");
-      return;
     }
 
-    try {
-      Task<GoogleSignInAccount> task = GoogleSignIn.getSignedInAccountFromIntent(result.getData());
-      GoogleSignInAccount account = task.getResult(ApiException.class);
-      
-      if (account == null) {
-        call.reject("Sign-in failed: Account is null");
-        return;
-      }
-
-      resolveWithAccount(call, account);
-
-    } catch (ApiException e) {
-      Log.e(TAG, "Sign-in failed with status code: " + e.getStatusCode(), e);
-      
-      if (e.getStatusCode() == SIGN_IN_CANCELLED) {
-        call.reject("The user canceled the sign-in flow.", "USER_CANCELLED", e);
-      } else if (e.getStatusCode() == NETWORK_ERROR) {
-        call.reject("Network error occurred. Please check your connection.", "NETWORK_ERROR", e);
-      } else {
-        call.reject("Sign-in failed with code: " + e.getStatusCode(), String.valueOf(e.getStatusCode()), e);
-      }
-    } catch (Exception e) {
-      Log.e(TAG, "Unexpected error during sign-in", e);
-      call.reject("An unexpected error occurred", e);
-    }
+    // The provider completes every caller waiting on this flow, including this call
+    googleProvider.onSignInResult(result.getData());
   }
 
-  private void resolveWithAccount(PluginCall call, GoogleSignInAccount account) {
+  private void resolveWithAccount(PluginCall call, GoogleAccount account, SignInTier tier) {
     try {
       JSObject authentication = new JSObject();
       authentication.put("idToken", account.getIdToken());
       
-      // Get access token if available
-      Account gAccount = account.getAccount();
-      if (gAccount != null) {
-        // Note: Getting access token requires async operation
-        // For now, we'll use the ID token
-        authentication.put("accessToken", account.getIdToken());
-      } else {
-        authentication.put("accessToken", "");
-      }
-      
+      // Note: Getting access token requires async operation
+      // For now, we'll use the ID token
+      authentication.put("accessToken", account.getEmail() != null ? account.getIdToken() : "");
       authentication.put("refreshToken", "");
 
       JSObject user = new JSObject();
@@ -229,7 +257,9 @@ public class GoogleAuth extends Plugin {
       user.put("familyName", account.getFamilyName() != null ? account.getFamilyName() : "");
       user.put("givenName", account.getGivenName() != null ? account.getGivenName() : "");
       user.put("id", account.getId() != null ? account.getId() : "");
-      user.put("imageUrl", account.getPhotoUrl() != null ? account.getPhotoUrl().toString() : "");
+      user.put("imageUrl", account.getPhotoUrl() != null ? account.getPhotoUrl() : "");
+      user.put("signInTier", tier.getLabel());
+      attachCachedAvatar(user, user.getString("imageUrl"));
 
       call.resolve(user);
     } catch (Exception e) {
@@ -238,41 +268,252 @@ public class GoogleAuth extends Plugin {
     }
   }
 
+  private void rejectWith(PluginCall call, ProviderException error) {
+    Exception cause = error.getCause() instanceof Exception ? (Exception) error.getCause() : error;
+    call.reject(error.getMessage(), error.getCode(), cause);
+  }
+
   @PluginMethod
   public void refresh(PluginCall call) {
-    GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(getContext());
-    if (account == null) {
-      call.reject("User not logged in.");
+    if (googleAuthService == null) {
+      // Play services restores the last session on its own, so it can be read before initialize()
+      GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(getContext());
+      if (account == null) {
+        call.reject("User not logged in.", ProviderException.NOT_SIGNED_IN);
+        return;
+      }
+      resolveWithAuthentication(call, account.getIdToken());
       return;
     }
 
-    try {
-      JSObject authentication = new JSObject();
-      authentication.put("idToken", account.getIdToken());
-      authentication.put("accessToken", account.getIdToken()); // Using ID token as access token
-      authentication.put("refreshToken", "");
-      call.resolve(authentication);
-    } catch (Exception e) {
-      Log.e(TAG, "Error refreshing token", e);
-      call.reject("Failed to refresh token", e);
-    }
+    googleAuthService.refresh(new ProviderCallback<GoogleAccount>() {
+      @Override
+      public void onSuccess(GoogleAccount account) {
+        resolveWithAuthentication(call, account.getIdToken());
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        Log.e(TAG, "Error refreshing token", error);
+        rejectWith(call, error);
+      }
+    });
+  }
+
+  private void resolveWithAuthentication(PluginCall call, String idToken) {
+    JSObject authentication = new JSObject();
+    authentication.put("idToken", idToken);
+    authentication.put("accessToken", idToken); // Using ID token as access token
+    authentication.put("refreshToken", "");
+    call.resolve(authentication);
   }
 
   @PluginMethod
   public void signOut(PluginCall call) {
-    if (googleSignInClient == null) {
+    lastSessionCheck.clear();
+    if (googleAuthService == null) {
       call.reject("Google services are not ready. Please call initialize() first");
       return;
     }
     
-    googleSignInClient.signOut()
-        .addOnSuccessListener(aVoid -> {
-          Log.d(TAG, "Sign out successful");
-          call.resolve();
-        })
-        .addOnFailureListener(e -> {
-          Log.e(TAG, "Sign out failed", e);
-          call.reject("Sign out failed", e);
-        });
+    googleAuthService.signOut(new ProviderCallback<Void>() {
+      @Override
+      public void onSuccess(Void result) {
+        Log.d(TAG, "Sign out successful");
+        call.resolve();
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        Log.e(TAG, "Sign out failed", error);
+        rejectWith(call, error);
+      }
+    });
+  }
+
+  @PluginMethod
+  public void getExecutorStats(PluginCall call) {
+    JSObject stats = new JSObject();
+    for (PluginExecutor.Lane lane : PluginExecutor.Lane.values()) {
+      PluginExecutor.LaneStats laneStats = executor.getStats(lane);
+      JSObject laneResult = new JSObject();
+      laneResult.put("queued", laneStats.getQueued());
+      laneResult.put("maxQueued", laneStats.getMaxQueued());
+      laneResult.put("executed", laneStats.getExecuted());
+      laneResult.put("averageWaitMs", laneStats.getAverageWaitMs());
+      laneResult.put("maxWaitMs", laneStats.getMaxWaitMs());
+      laneResult.put("rejected", laneStats.getRejected());
+      stats.put(lane.getLabel(), laneResult);
+    }
+    call.resolve(stats);
+  }
+
+  @PluginMethod
+  public void getSignInStats(PluginCall call) {
+    if (googleAuthService == null) {
+      call.reject("Google services are not ready. Please call initialize() first");
+      return;
+    }
+
+    JSObject stats = new JSObject();
+    for (SignInTier tier : SignInTier.values()) {
+      stats.put(tier.getLabel(), googleAuthService.getTierCount(tier));
+    }
+    stats.put("failed", googleAuthService.getFailedCount());
+    stats.put("coalesced", googleAuthService.getCoalescedCount());
+    call.resolve(stats);
+  }
+
+  private void configureResumeRevalidation(PluginCall call) {
+    JSObject options = call.getObject("resumeRevalidation");
+    boolean enabled = options != null && options.getBoolean("enabled", false);
+    long debounceMs = options != null ? options.optLong("debounce", DEFAULT_RESUME_DEBOUNCE_MS) : DEFAULT_RESUME_DEBOUNCE_MS;
+
+    if (resumeRevalidation != null) {
+      resumeRevalidation.cancel();
+    }
+    resumeRevalidation = enabled ? new DebouncedTask(executor, debounceMs, this::revalidateSession) : null;
+  }
+
+  private void revalidateSession(Runnable done) {
+    GoogleAuthService service = googleAuthService;
+    if (service == null) {
+      done.run();
+      return;
+    }
+
+    int token = lastSessionCheck.begin();
+    service.revalidate(new ProviderCallback<SessionCheck>() {
+      @Override
+      public void onSuccess(SessionCheck check) {
+        JSObject google = new JSObject();
+        google.put("status", check.getStatus().getLabel());
+        if (check.getExpiresAt() > 0) {
+          google.put("expiresAt", check.getExpiresAt());
+        }
+        publish(google);
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        Log.w(TAG, "Session revalidation failed: " + error.getMessage(), error);
+        JSObject google = new JSObject();
+        google.put("status", "failed");
+        google.put("error", error.getMessage());
+        google.put("code", error.getCode());
+        publish(google);
+      }
+
+      private void publish(JSObject google) {
+        JSObject event = new JSObject();
+        event.put("google", google);
+        event.put("checkedAt", System.currentTimeMillis());
+        try {
+          // A check that was running when the user signed out must not report the old session
+          if (lastSessionCheck.record(token, event)) {
+            notifyListeners(SESSION_REVALIDATED_EVENT, event);
+          }
+        } finally {
+          done.run();
+        }
+      }
+    });
+  }
+
+  @PluginMethod
+  public void getLastSessionCheck(PluginCall call) {
+    JSObject event = lastSessionCheck.get();
+    if (event != null) {
+      call.resolve(event);
+    } else {
+      call.resolve();
+    }
+  }
+
+  @PluginMethod
+  public void getCachedAvatar(PluginCall call) {
+    String url = call.getString("url");
+    if (url == null || url.isEmpty()) {
+      call.reject("Avatar url is required");
+      return;
+    }
+
+    int size = call.getInt("size", avatarSize);
+    try {
+      AvatarCache.checkRequest(url, size);
+    } catch (IllegalArgumentException e) {
+      call.reject(e.getMessage());
+      return;
+    }
+
+    ensureAvatarCache().prefetch(url, size, new AvatarCache.Callback() {
+      @Override
+      public void onAvatarReady(File file) {
+        JSObject result = new JSObject();
+        result.put("url", localUrlFor(file));
+        result.put("path", file.getAbsolutePath());
+        call.resolve(result);
+      }
+
+      @Override
+      public void onAvatarFailed(Exception e) {
+        Log.e(TAG, "Failed to cache avatar", e);
+        call.reject("Failed to cache avatar: " + e.getMessage(), e);
+      }
+    });
+  }
+
+  // Checked before anything is configured so a bad option leaves the previous setup untouched
+  private boolean rejectInvalidAvatarCache(PluginCall call) {
+    JSObject avatarOptions = call.getObject("avatarCache");
+    if (avatarOptions == null) {
+      return false;
+    }
+    try {
+      AvatarCache.checkSize(avatarOptions.getInteger("size", DEFAULT_AVATAR_SIZE));
+      return false;
+    } catch (IllegalArgumentException e) {
+      call.reject("Invalid avatarCache: " + e.getMessage());
+      return true;
+    }
+  }
+
+  private void configureAvatarCache(PluginCall call) {
+    JSObject avatarOptions = call.getObject("avatarCache");
+    if (avatarOptions != null && avatarOptions.getBoolean("enabled", false)) {
+      avatarSize = avatarOptions.getInteger("size", DEFAULT_AVATAR_SIZE);
+      ensureAvatarCache();
+    }
+  }
+
+  private AvatarCache ensureAvatarCache() {
+    if (avatarCache == null) {
+      avatarCache = new AvatarCache(
+          new File(getContext().getCacheDir(), "google-auth-avatars"),
+          AVATAR_MEMORY_BYTES,
+          AVATAR_DISK_BYTES,
+          new BitmapAvatarResizer(),
+          // Downloads block for up to the HTTP timeouts, so they get their own lane
+          executor.lane(PluginExecutor.Lane.IO));
+    }
+    return avatarCache;
+  }
+
+  private void attachCachedAvatar(JSObject user, String imageUrl) {
+    if (avatarCache == null || imageUrl == null || imageUrl.isEmpty()) {
+      return;
+    }
+
+    File cached = avatarCache.getCached(imageUrl, avatarSize);
+    if (cached != null) {
+      user.put("imageLocalUrl", localUrlFor(cached));
+    } else {
+      // Warm the cache in the background so the next render can use the local copy
+      avatarCache.prefetch(imageUrl, avatarSize, null);
+    }
+  }
+
+  private String localUrlFor(File file) {
+    return getBridge().getLocalUrl() + Bridge.CAPACITOR_FILE_START + file.getAbsolutePath();
   }
 }
\ No newline at end of file
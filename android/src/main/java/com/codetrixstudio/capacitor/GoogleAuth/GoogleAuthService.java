@@ -0,0 +1,389 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import com.deldev.capacitor.GoogleAuth.provider.GoogleAccount;
+import com.deldev.capacitor.GoogleAuth.provider.GoogleIdentityProvider;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Google sign-in logic shared by {@code GoogleAuth} and {@code SocialAuth}, kept free of
+ * Capacitor types so it can be exercised on the JVM against a fake provider.
+ *
+ * Sign-in is tiered: a cached account with a fresh ID token is returned straight away, otherwise
+ * {@code silentSignIn()} gets a short window to refresh the session, and only then is the account
+ * picker shown. Callers that arrive while a silent sign-in or a picker is already running wait for
+ * its result instead of starting another.
+ */
+public class GoogleAuthService {
+
+  public static final long DEFAULT_SILENT_SIGN_IN_TIMEOUT_MS = 3000;
+
+  // Tokens closer than this to expiry are not handed out from memory
+  private static final long FRESHNESS_MARGIN_MS = 5 * 60 * 1000;
+
+  // Background revalidation refreshes well ahead of expiry so resumed screens never see a stale token
+  private static final long REVALIDATION_MARGIN_MS = 15 * 60 * 1000;
+
+  private final GoogleIdentityProvider provider;
+  private final PluginExecutor executor;
+  private final PendingCalls pendingCalls = new PendingCalls();
+  private final AtomicIntegerArray tierCounts = new AtomicIntegerArray(SignInTier.values().length);
+  private final AtomicInteger failedCount = new AtomicInteger();
+  private final AtomicInteger coalescedCount = new AtomicInteger();
+
+  // Callers sharing the silent sign-in in flight, null when there is none
+  private final Object silentLock = new Object();
+  private List<Waiter> silentWaiters;
+
+  // Callers waiting on the account picker that is currently showing, null when there is none
+  private final Object interactiveLock = new Object();
+  private List<Waiter> interactiveWaiters;
+
+  private volatile GoogleAccount session;
+  private volatile long silentSignInTimeoutMs = DEFAULT_SILENT_SIGN_IN_TIMEOUT_MS;
+
+  public GoogleAuthService(GoogleIdentityProvider provider) {
+    this(provider, PluginExecutor.getDefault());
+  }
+
+  public GoogleAuthService(GoogleIdentityProvider provider, PluginExecutor executor) {
+    this.provider = provider;
+    this.executor = executor;
+  }
+
+  public void setSilentSignInTimeout(long silentSignInTimeoutMs) {
+    this.silentSignInTimeoutMs = silentSignInTimeoutMs;
+  }
+
+  public void signIn(ProviderCallback<GoogleSignInResult> callback) {
+    signIn(null, callback);
+  }
+
+  /**
+   * Same as {@link #signIn(ProviderCallback)}; {@code host} is reported by
+   * {@link #getInteractiveHost()} while this caller waits on the account picker.
+   */
+  public void signIn(Object host, ProviderCallback<GoogleSignInResult> callback) {
+    Waiter tracked = new Waiter(host, pendingCalls.track(callback));
+    try {
+      GoogleAccount cached = session != null ? session : provider.getLastSignedInAccount();
+      if (isFresh(cached)) {
+        session = cached;
+        succeed(tracked.callback, cached, SignInTier.MEMORY);
+        return;
+      }
+
+      silentThenInteractive(tracked);
+    } catch (RejectedExecutionException e) {
+      fail(tracked.callback, new ProviderException(e.getMessage(), ProviderException.REJECTED, e));
+    } catch (RuntimeException e) {
+      fail(tracked.callback, new ProviderException("An unexpected error occurred", null, e));
+    }
+  }
+
+  public void refresh(ProviderCallback<GoogleAccount> callback) {
+    ProviderCallback<GoogleAccount> tracked = pendingCalls.track(callback);
+    try {
+      GoogleAccount account = session != null ? session : provider.getLastSignedInAccount();
+      if (account == null) {
+        tracked.onError(new ProviderException("User not logged in.", ProviderException.NOT_SIGNED_IN));
+        return;
+      }
+
+      tracked.onSuccess(account);
+    } catch (RuntimeException e) {
+      tracked.onError(new ProviderException("Failed to refresh token", null, e));
+    }
+  }
+
+  public void signOut(ProviderCallback<Void> callback) {
+    ProviderCallback<Void> tracked = pendingCalls.track(callback);
+    session = null;
+    try {
+      provider.signOut(tracked);
+    } catch (RuntimeException e) {
+      tracked.onError(new ProviderException("Sign out failed", null, e));
+    }
+  }
+
+  /**
+   * Makes sure the signed-in session is still usable without ever showing the account picker.
+   * Sessions whose ID token is comfortably fresh are reported as such without any Play services
+   * call; otherwise a silent sign-in refreshes them.
+   */
+  public void revalidate(ProviderCallback<SessionCheck> callback) {
+    ProviderCallback<SessionCheck> tracked = pendingCalls.track(callback);
+    try {
+      GoogleAccount account = session != null ? session : provider.getLastSignedInAccount();
+      if (account == null) {
+        tracked.onSuccess(new SessionCheck(SessionCheck.Status.SIGNED_OUT, 0));
+        return;
+      }
+      if (account.getIdTokenExpiresAt() > 0
+          && !account.isIdTokenExpired(System.currentTimeMillis(), REVALIDATION_MARGIN_MS)) {
+        tracked.onSuccess(new SessionCheck(SessionCheck.Status.FRESH, account.getIdTokenExpiresAt()));
+        return;
+      }
+
+      // Same window as the silent tier of sign-in, a Task that never completes must not stall the check
+      AtomicBoolean settled = new AtomicBoolean();
+      ScheduledFuture<?> timeout = executor.schedule(PluginExecutor.Lane.BACKGROUND, () -> {
+        if (settled.compareAndSet(false, true)) {
+          tracked.onError(new ProviderException("Session revalidation timed out", ProviderException.TIMEOUT));
+        }
+      }, silentSignInTimeoutMs);
+
+      provider.silentSignIn(new ProviderCallback<GoogleAccount>() {
+        @Override
+        public void onSuccess(GoogleAccount refreshed) {
+          session = refreshed;
+          if (settled.compareAndSet(false, true)) {
+            timeout.cancel(false);
+            tracked.onSuccess(new SessionCheck(SessionCheck.Status.REFRESHED, refreshed.getIdTokenExpiresAt()));
+          }
+        }
+
+        @Override
+        public void onError(ProviderException error) {
+          boolean signedOut = ProviderException.NOT_SIGNED_IN.equals(error.getCode());
+          if (signedOut) {
+            session = null;
+          }
+          if (!settled.compareAndSet(false, true)) {
+            return;
+          }
+          timeout.cancel(false);
+          if (signedOut) {
+            tracked.onSuccess(new SessionCheck(SessionCheck.Status.SIGNED_OUT, 0));
+          } else {
+            tracked.onError(error);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      tracked.onError(new ProviderException(e.getMessage(), ProviderException.REJECTED, e));
+    } catch (RuntimeException e) {
+      tracked.onError(new ProviderException("Session revalidation failed", null, e));
+    }
+  }
+
+  /**
+   * Disconnects the app from the account; the next sign-in shows the consent screen again.
+   */
+  public void revokeAccess(ProviderCallback<Void> callback) {
+    ProviderCallback<Void> tracked = pendingCalls.track(callback);
+    session = null;
+    try {
+      provider.revokeAccess(tracked);
+    } catch (RuntimeException e) {
+      tracked.onError(new ProviderException("Revoke access failed", null, e));
+    }
+  }
+
+  /**
+   * Number of sign-ins served by {@code tier} since this service was created.
+   */
+  public int getTierCount(SignInTier tier) {
+    return tierCounts.get(tier.ordinal());
+  }
+
+  /**
+   * Number of sign-ins that failed on every tier.
+   */
+  public int getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * Number of sign-ins that joined an account picker that was already showing.
+   */
+  public int getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /**
+   * Host of the earliest caller waiting on the account picker, or null when no picker flow is
+   * running. Callers still in the silent tier are never returned, since they may complete and go
+   * away while the picker is showing.
+   */
+  public Object getInteractiveHost() {
+    synchronized (interactiveLock) {
+      if (interactiveWaiters == null) {
+        return null;
+      }
+      for (Waiter waiter : interactiveWaiters) {
+        if (waiter.host != null) {
+          return waiter.host;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Number of calls handed to this service that have not completed yet.
+   */
+  public int getPendingCount() {
+    return pendingCalls.size();
+  }
+
+  private void silentThenInteractive(Waiter waiter) {
+    synchronized (silentLock) {
+      if (silentWaiters != null) {
+        // A silent sign-in is already running, share its outcome instead of starting another one
+        silentWaiters.add(waiter);
+        return;
+      }
+      silentWaiters = new ArrayList<>();
+      silentWaiters.add(waiter);
+    }
+
+    AtomicBoolean settled = new AtomicBoolean();
+    ScheduledFuture<?> timeout;
+    try {
+      timeout = executor.schedule(PluginExecutor.Lane.USER, () -> {
+        if (settled.compareAndSet(false, true)) {
+          interactive(takeSilentWaiters());
+        }
+      }, silentSignInTimeoutMs);
+    } catch (RejectedExecutionException e) {
+      for (Waiter rejected : takeSilentWaiters()) {
+        fail(rejected.callback, new ProviderException(e.getMessage(), ProviderException.REJECTED, e));
+      }
+      return;
+    }
+
+    ProviderCallback<GoogleAccount> silentCallback = new ProviderCallback<GoogleAccount>() {
+      @Override
+      public void onSuccess(GoogleAccount account) {
+        session = account;
+        if (settled.compareAndSet(false, true)) {
+          timeout.cancel(false);
+          for (Waiter silent : takeSilentWaiters()) {
+            succeed(silent.callback, account, SignInTier.SILENT);
+          }
+        }
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        // Any silent failure (sign-in required, network, timeout) falls through to the picker
+        if (settled.compareAndSet(false, true)) {
+          timeout.cancel(false);
+          interactive(takeSilentWaiters());
+        }
+      }
+    };
+
+    try {
+      provider.silentSignIn(silentCallback);
+    } catch (RuntimeException e) {
+      silentCallback.onError(new ProviderException("Silent sign-in failed", null, e));
+    }
+  }
+
+  private List<Waiter> takeSilentWaiters() {
+    synchronized (silentLock) {
+      List<Waiter> waiters = silentWaiters;
+      silentWaiters = null;
+      return waiters != null ? waiters : Collections.<Waiter>emptyList();
+    }
+  }
+
+  private void interactive(List<Waiter> waiters) {
+    if (waiters.isEmpty()) {
+      return;
+    }
+
+    // A silent sign-in may have landed after the window closed, e.g. a late answer or a revalidation
+    GoogleAccount current = session;
+    if (isFresh(current)) {
+      for (Waiter waiter : waiters) {
+        succeed(waiter.callback, current, SignInTier.SILENT);
+      }
+      return;
+    }
+
+    synchronized (interactiveLock) {
+      if (interactiveWaiters != null) {
+        // A picker is already showing, share its outcome instead of opening another one
+        interactiveWaiters.addAll(waiters);
+        coalescedCount.addAndGet(waiters.size());
+        return;
+      }
+      interactiveWaiters = new ArrayList<>(waiters);
+      // Everyone but the first caller would have opened a picker of their own
+      coalescedCount.addAndGet(waiters.size() - 1);
+    }
+
+    ProviderCallback<GoogleAccount> pickerCallback = new ProviderCallback<GoogleAccount>() {
+      @Override
+      public void onSuccess(GoogleAccount account) {
+        session = account;
+        for (Waiter waiter : takeInteractiveWaiters()) {
+          succeed(waiter.callback, account, SignInTier.INTERACTIVE);
+        }
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        for (Waiter waiter : takeInteractiveWaiters()) {
+          fail(waiter.callback, error);
+        }
+      }
+    };
+
+    try {
+      provider.interactiveSignIn(pickerCallback);
+    } catch (RuntimeException e) {
+      pickerCallback.onError(new ProviderException("An unexpected error occurred", null, e));
+    }
+  }
+
+  private List<Waiter> takeInteractiveWaiters() {
+    synchronized (interactiveLock) {
+      List<Waiter> waiters = interactiveWaiters;
+      interactiveWaiters = null;
+      // A provider that reports twice must not complete the callers of the next flow
+      return waiters != null ? waiters : Collections.<Waiter>emptyList();
+    }
+  }
+
+  private void succeed(ProviderCallback<GoogleSignInResult> callback, GoogleAccount account, SignInTier tier) {
+    tierCounts.incrementAndGet(tier.ordinal());
+    callback.onSuccess(new GoogleSignInResult(account, tier));
+  }
+
+  private void fail(ProviderCallback<GoogleSignInResult> callback, ProviderException error) {
+    failedCount.incrementAndGet();
+    callback.onError(error);
+  }
+
+  private static boolean isFresh(GoogleAccount account) {
+    // Accounts without a readable expiry are revalidated through silentSignIn()
+    return account != null
+        && account.getIdTokenExpiresAt() > 0
+        && !account.isIdTokenExpired(System.currentTimeMillis(), FRESHNESS_MARGIN_MS);
+  }
+
+  // A sign-in caller and the plugin call, if any, that can host the account picker for it
+  private static final class Waiter {
+
+    final Object host;
+    final ProviderCallback<GoogleSignInResult> callback;
+
+    Waiter(Object host, ProviderCallback<GoogleSignInResult> callback) {
+      this.host = host;
+      this.callback = callback;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import com.deldev.capacitor.GoogleAuth.provider.GoogleAccount;
+
+/**
+ * Account returned by {@link GoogleAuthService#signIn} together with the tier that served it.
+ */
+public class GoogleSignInResult {
+
+  private final GoogleAccount account;
+  private final SignInTier tier;
+
+  public GoogleSignInResult(GoogleAccount account, SignInTier tier) {
+    this.account = account;
+    this.tier = tier;
+  }
+
+  public GoogleAccount getAccount() {
+    return account;
+  }
+
+  public SignInTier getTier() {
+    return tier;
+  }
+}
@@ -0,0 +1,42 @@
+package com.deldev.capacitor.GoogleAuth;
+
+/**
+ * Latest published session revalidation result.
+ *
+ * Signing out forgets it, including the result of a check that was still running at the time,
+ * so a sign-out is never followed by a report of the previous session as fresh.
+ */
+public class LastSessionCheck<T> {
+
+  private T value;
+  private int generation;
+
+  /**
+   * Marks the start of a check; pass the returned token to {@link #record(int, Object)}.
+   */
+  public synchronized int begin() {
+    return generation;
+  }
+
+  /**
+   * Keeps {@code value} unless {@link #clear()} was called since {@code token} was taken.
+   *
+   * @return false when the result is stale and should not be published
+   */
+  public synchronized boolean record(int token, T value) {
+    if (token != generation) {
+      return false;
+    }
+    this.value = value;
+    return true;
+  }
+
+  public synchronized T get() {
+    return value;
+  }
+
+  public synchronized void clear() {
+    generation++;
+    value = null;
+  }
+}
@@ -0,0 +1,59 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts callbacks that have been handed out but not completed yet, so a call that is never
+ * resolved or rejected shows up as a leak instead of a silently hanging promise.
+ */
+public class PendingCalls {
+
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicInteger duplicateCompletions = new AtomicInteger();
+
+  /**
+   * Wraps {@code callback} so it is counted as pending until its first completion. Later
+   * completions are dropped and counted as duplicates.
+   */
+  public <T> ProviderCallback<T> track(ProviderCallback<T> callback) {
+    pending.incrementAndGet();
+    AtomicBoolean completed = new AtomicBoolean();
+
+    return new ProviderCallback<T>() {
+      @Override
+      public void onSuccess(T result) {
+        if (complete()) {
+          callback.onSuccess(result);
+        }
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        if (complete()) {
+          callback.onError(error);
+        }
+      }
+
+      private boolean complete() {
+        if (!completed.compareAndSet(false, true)) {
+          duplicateCompletions.incrementAndGet();
+          return false;
+        }
+        pending.decrementAndGet();
+        return true;
+      }
+    };
+  }
+
+  public int size() {
+    return pending.get();
+  }
+
+  public int getDuplicateCompletions() {
+    return duplicateCompletions.get();
+  }
+}
@@ -0,0 +1,426 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded thread pools owned by a plugin, split into lanes so background refreshes and prefetches
+ * can never delay work a user is waiting on.
+ *
+ * Each lane has a fixed number of threads and a bounded queue. Work is never run on the submitting
+ * thread, which may be the main thread or a Play services callback thread: when a queue is full, or
+ * after {@link #shutdown()}, {@link #execute} throws {@link RejectedExecutionException} so the caller
+ * can fail its call instead of leaving it pending. Delayed tasks share one timer thread that only
+ * hands them over to their lane, retrying shortly while the lane is full and giving up, counted as
+ * rejected, if it stays full.
+ */
+public class PluginExecutor {
+
+  public enum Lane {
+    // Sign-in results, profile conversion and anything else a pending call waits on
+    USER("user", 2, 128),
+    // Resume revalidation and other work nobody is waiting on
+    BACKGROUND("background", 1, 64),
+    // Blocking network and disk work such as avatar downloads, kept off the lanes above
+    IO("io", 3, 64);
+
+    private final String label;
+    private final int threads;
+    private final int queueCapacity;
+
+    Lane(String label, int threads, int queueCapacity) {
+      this.label = label;
+      this.threads = threads;
+      this.queueCapacity = queueCapacity;
+    }
+
+    public String getLabel() {
+      return label;
+    }
+  }
+
+  public static class LaneStats {
+
+    private final int queued;
+    private final int maxQueued;
+    private final long executed;
+    private final long averageWaitMs;
+    private final long maxWaitMs;
+    private final int rejected;
+
+    LaneStats(int queued, int maxQueued, long executed, long averageWaitMs, long maxWaitMs, int rejected) {
+      this.queued = queued;
+      this.maxQueued = maxQueued;
+      this.executed = executed;
+      this.averageWaitMs = averageWaitMs;
+      this.maxWaitMs = maxWaitMs;
+      this.rejected = rejected;
+    }
+
+    /**
+     * Tasks waiting for a thread right now.
+     */
+    public int getQueued() {
+      return queued;
+    }
+
+    public int getMaxQueued() {
+      return maxQueued;
+    }
+
+    public long getExecuted() {
+      return executed;
+    }
+
+    /**
+     * Average time tasks spent queued before a thread picked them up.
+     */
+    public long getAverageWaitMs() {
+      return averageWaitMs;
+    }
+
+    public long getMaxWaitMs() {
+      return maxWaitMs;
+    }
+
+    /**
+     * Tasks refused because the queue was full or the executor was shut down.
+     */
+    public int getRejected() {
+      return rejected;
+    }
+  }
+
+  // How long the timer waits before handing a delayed task to a full lane again
+  private static final long HANDOVER_RETRY_MS = 20;
+  // About five seconds of retries before a delayed task is rejected
+  private static final int DEFAULT_HANDOVER_ATTEMPTS = 250;
+
+  private static PluginExecutor defaultInstance;
+
+  private final ThreadPoolExecutor[] pools = new ThreadPoolExecutor[Lane.values().length];
+  private final LaneCounters[] counters = new LaneCounters[Lane.values().length];
+  private final ScheduledThreadPoolExecutor timer;
+  private final AtomicInteger pendingHandovers = new AtomicInteger();
+  private volatile int handoverAttempts = DEFAULT_HANDOVER_ATTEMPTS;
+  private volatile boolean shutdown;
+
+  public PluginExecutor(String name) {
+    for (Lane lane : Lane.values()) {
+      LaneCounters laneCounters = new LaneCounters();
+      counters[lane.ordinal()] = laneCounters;
+      pools[lane.ordinal()] = new ThreadPoolExecutor(
+          lane.threads,
+          lane.threads,
+          30,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(lane.queueCapacity),
+          threadFactory(name + "-" + lane.label),
+          reject(lane));
+      pools[lane.ordinal()].allowCoreThreadTimeOut(true);
+    }
+
+    timer = new ScheduledThreadPoolExecutor(1, threadFactory(name + "-timer"));
+    timer.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Process wide instance for code that is not owned by a plugin, such as the services when
+   * they are constructed without an executor (tests and standalone use). It lives as long as the
+   * process and is never shut down; the plugins always pass their own executor, which they shut
+   * down in {@code handleOnDestroy()}.
+   */
+  public static synchronized PluginExecutor getDefault() {
+    if (defaultInstance == null) {
+      defaultInstance = new PluginExecutor("AuthDefault");
+    }
+    return defaultInstance;
+  }
+
+  /**
+   * Queues {@code task} on {@code lane}.
+   *
+   * @throws RejectedExecutionException when the lane's queue is full or the executor was shut down
+   */
+  public void execute(Lane lane, Runnable task) {
+    if (shutdown) {
+      counters[lane.ordinal()].rejected.incrementAndGet();
+      throw new RejectedExecutionException("Executor was shut down");
+    }
+    try {
+      submit(lane, task);
+    } catch (RejectedExecutionException e) {
+      counters[lane.ordinal()].rejected.incrementAndGet();
+      throw e;
+    }
+  }
+
+  private void submit(Lane lane, Runnable task) {
+    LaneCounters laneCounters = counters[lane.ordinal()];
+    long enqueuedAt = System.currentTimeMillis();
+    pools[lane.ordinal()].execute(() -> {
+      laneCounters.recordWait(System.currentTimeMillis() - enqueuedAt);
+      task.run();
+    });
+    laneCounters.recordQueued(pools[lane.ordinal()].getQueue().size());
+  }
+
+  /**
+   * {@link Executor} view of {@code lane}, for APIs that take one. Rejects like {@link #execute}.
+   */
+  public Executor lane(Lane lane) {
+    return task -> execute(lane, task);
+  }
+
+  /**
+   * Runs {@code task} on {@code lane} once {@code delayMs} has passed. Tasks scheduled before
+   * {@link #shutdown()} still run, so timeouts keep settling the calls they guard. Cancelling the
+   * returned future stops the task until a lane thread has started it, even while the hand-over
+   * to a full lane is being retried.
+   *
+   * @throws RejectedExecutionException when the executor was shut down
+   */
+  public ScheduledFuture<?> schedule(Lane lane, Runnable task, long delayMs) {
+    DelayedTask delayed = new DelayedTask(lane, task);
+    synchronized (this) {
+      if (shutdown) {
+        counters[lane.ordinal()].rejected.incrementAndGet();
+        throw new RejectedExecutionException("Executor was shut down");
+      }
+      pendingHandovers.incrementAndGet();
+    }
+    delayed.start(delayMs);
+    return delayed;
+  }
+
+  /**
+   * Number of hand-over attempts before a delayed task whose lane stays full is rejected.
+   */
+  void setHandoverAttempts(int attempts) {
+    handoverAttempts = attempts;
+  }
+
+  public LaneStats getStats(Lane lane) {
+    LaneCounters laneCounters = counters[lane.ordinal()];
+    long executed = laneCounters.executed.get();
+    return new LaneStats(
+        pools[lane.ordinal()].getQueue().size(),
+        laneCounters.maxQueued.get(),
+        executed,
+        executed > 0 ? laneCounters.totalWaitMs.get() / executed : 0,
+        laneCounters.maxWaitMs.get(),
+        laneCounters.rejected.get());
+  }
+
+  /**
+   * Refuses new work. Queued and already scheduled tasks still run so the calls waiting on them
+   * settle; the timer and lane pools are shut down as soon as no delayed task is left to hand over.
+   */
+  public void shutdown() {
+    synchronized (this) {
+      shutdown = true;
+    }
+    stopWhenDrained();
+  }
+
+  /**
+   * True once the timer and lane pools were shut down after {@link #shutdown()}.
+   */
+  boolean isStopped() {
+    return timer.isShutdown();
+  }
+
+  private void handoverFinished() {
+    pendingHandovers.decrementAndGet();
+    stopWhenDrained();
+  }
+
+  // Pools finish their queued tasks after shutdown(), only pending hand-overs still need them open
+  private synchronized void stopWhenDrained() {
+    if (shutdown && pendingHandovers.get() == 0 && !timer.isShutdown()) {
+      timer.shutdown();
+      for (ThreadPoolExecutor pool : pools) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  private static ThreadFactory threadFactory(String prefix) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static RejectedExecutionHandler reject(Lane lane) {
+    return (task, pool) -> {
+      throw new RejectedExecutionException(pool.isShutdown() ? "Executor was shut down" : "The " + lane.label + " lane is full");
+    };
+  }
+
+  /**
+   * Future of a delayed task that stays attached across hand-over retries, so cancelling it always
+   * reaches the task.
+   */
+  private final class DelayedTask implements ScheduledFuture<Object> {
+
+    private final Lane lane;
+    private final Runnable task;
+    private final CountDownLatch done = new CountDownLatch(1);
+    // Set by whoever decides the outcome first: a lane thread starting the task, cancel() or giving up
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean handedOver = new AtomicBoolean();
+    private volatile ScheduledFuture<?> pending;
+    private volatile boolean cancelled;
+    private volatile RejectedExecutionException failure;
+    // Only touched on the timer thread
+    private int attempts;
+
+    DelayedTask(Lane lane, Runnable task) {
+      this.lane = lane;
+      this.task = task;
+    }
+
+    void start(long delayMs) {
+      pending = timer.schedule(this::handOver, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs on the timer thread, which must stay free to fire other delays, so it never runs the task
+    private void handOver() {
+      if (started.get()) {
+        finishHandover();
+        return;
+      }
+      try {
+        submit(lane, this::run);
+        finishHandover();
+      } catch (RejectedExecutionException e) {
+        if (++attempts < handoverAttempts) {
+          pending = timer.schedule(this::handOver, HANDOVER_RETRY_MS, TimeUnit.MILLISECONDS);
+        } else if (started.compareAndSet(false, true)) {
+          counters[lane.ordinal()].rejected.incrementAndGet();
+          failure = e;
+          done.countDown();
+          finishHandover();
+        } else {
+          finishHandover();
+        }
+      }
+    }
+
+    private void run() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        task.run();
+      } finally {
+        done.countDown();
+      }
+    }
+
+    private void finishHandover() {
+      if (handedOver.compareAndSet(false, true)) {
+        handoverFinished();
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!started.compareAndSet(false, true)) {
+        return false;
+      }
+      cancelled = true;
+      pending.cancel(false);
+      done.countDown();
+      finishHandover();
+      return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+      return done.getCount() == 0;
+    }
+
+    @Override
+    public Object get() throws InterruptedException, ExecutionException {
+      done.await();
+      return outcome();
+    }
+
+    @Override
+    public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!done.await(timeout, unit)) {
+        throw new TimeoutException();
+      }
+      return outcome();
+    }
+
+    private Object outcome() throws ExecutionException {
+      if (cancelled) {
+        throw new CancellationException();
+      }
+      if (failure != null) {
+        throw new ExecutionException(failure);
+      }
+      return null;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+      return pending.getDelay(unit);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+  }
+
+  private static class LaneCounters {
+
+    final AtomicLong executed = new AtomicLong();
+    final AtomicLong totalWaitMs = new AtomicLong();
+    final AtomicLong maxWaitMs = new AtomicLong();
+    final AtomicInteger maxQueued = new AtomicInteger();
+    final AtomicInteger rejected = new AtomicInteger();
+
+    void recordWait(long waitMs) {
+      executed.incrementAndGet();
+      totalWaitMs.addAndGet(waitMs);
+      long max;
+      do {
+        max = maxWaitMs.get();
+      } while (waitMs > max && !maxWaitMs.compareAndSet(max, waitMs));
+    }
+
+    void recordQueued(int queued) {
+      int max;
+      do {
+        max = maxQueued.get();
+      } while (queued > max && !maxQueued.compareAndSet(max, queued));
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.deldev.capacitor.GoogleAuth;
+
+/**
+ * Outcome of a background session revalidation for one provider.
+ */
+public class SessionCheck {
+
+  public enum Status {
+    // Token is far enough from expiry that nothing was done
+    FRESH("fresh"),
+    REFRESHED("refreshed"),
+    SIGNED_OUT("signedOut");
+
+    private final String label;
+
+    Status(String label) {
+      this.label = label;
+    }
+
+    public String getLabel() {
+      return label;
+    }
+  }
+
+  private final Status status;
+  private final long expiresAt;
+
+  public SessionCheck(Status status, long expiresAt) {
+    this.status = status;
+    this.expiresAt = expiresAt;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  /**
+   * Token expiry in epoch milliseconds, or 0 when signed out or unknown.
+   */
+  public long getExpiresAt() {
+    return expiresAt;
+  }
+}
@@ -0,0 +1,23 @@
+package com.deldev.capacitor.GoogleAuth;
+
+/**
+ * Which step of the tiered sign-in strategy produced the account.
+ */
+public enum SignInTier {
+  /** Cached account whose ID token is still comfortably valid. */
+  MEMORY("memory"),
+  /** {@code silentSignIn()} refreshed the session without UI. */
+  SILENT("silent"),
+  /** The account picker was shown. */
+  INTERACTIVE("interactive");
+
+  private final String label;
+
+  SignInTier(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
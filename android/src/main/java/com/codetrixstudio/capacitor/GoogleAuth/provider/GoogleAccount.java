@@ -0,0 +1,137 @@
+package com.deldev.capacitor.GoogleAuth.provider;
+
+/**
+ * Provider-neutral snapshot of a signed-in Google account.
+ */
+public class GoogleAccount {
+
+  private final String id;
+  private final String email;
+  private final String displayName;
+  private final String givenName;
+  private final String familyName;
+  private final String photoUrl;
+  private final String idToken;
+  private final String serverAuthCode;
+  private final long idTokenExpiresAt;
+
+  private GoogleAccount(Builder builder) {
+    this.id = builder.id;
+    this.email = builder.email;
+    this.displayName = builder.displayName;
+    this.givenName = builder.givenName;
+    this.familyName = builder.familyName;
+    this.photoUrl = builder.photoUrl;
+    this.idToken = builder.idToken;
+    this.serverAuthCode = builder.serverAuthCode;
+    this.idTokenExpiresAt = builder.idTokenExpiresAt;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  public String getGivenName() {
+    return givenName;
+  }
+
+  public String getFamilyName() {
+    return familyName;
+  }
+
+  public String getPhotoUrl() {
+    return photoUrl;
+  }
+
+  public String getIdToken() {
+    return idToken;
+  }
+
+  public String getServerAuthCode() {
+    return serverAuthCode;
+  }
+
+  /**
+   * Expiry of the ID token in epoch milliseconds, or 0 when it is unknown.
+   */
+  public long getIdTokenExpiresAt() {
+    return idTokenExpiresAt;
+  }
+
+  /**
+   * True when the ID token is known to expire within {@code marginMs} of {@code now}.
+   */
+  public boolean isIdTokenExpired(long now, long marginMs) {
+    return idTokenExpiresAt > 0 && idTokenExpiresAt - marginMs <= now;
+  }
+
+  public static class Builder {
+
+    private String id;
+    private String email;
+    private String displayName;
+    private String givenName;
+    private String familyName;
+    private String photoUrl;
+    private String idToken;
+    private String serverAuthCode;
+    private long idTokenExpiresAt;
+
+    public Builder setId(String id) {
+      this.id = id;
+      return this;
+    }
+
+    public Builder setEmail(String email) {
+      this.email = email;
+      return this;
+    }
+
+    public Builder setDisplayName(String displayName) {
+      this.displayName = displayName;
+      return this;
+    }
+
+    public Builder setGivenName(String givenName) {
+      this.givenName = givenName;
+      return this;
+    }
+
+    public Builder setFamilyName(String familyName) {
+      this.familyName = familyName;
+      return this;
+    }
+
+    public Builder setPhotoUrl(String photoUrl) {
+      this.photoUrl = photoUrl;
+      return this;
+    }
+
+    public Builder setIdToken(String idToken) {
+      this.idToken = idToken;
+      return this;
+    }
+
+    public Builder setServerAuthCode(String serverAuthCode) {
+      this.serverAuthCode = serverAuthCode;
+      return this;
+    }
+
+    public Builder setIdTokenExpiresAt(long idTokenExpiresAt) {
+      this.idTokenExpiresAt = idTokenExpiresAt;
+      return this;
+    }
+
+    public GoogleAccount build() {
+      return new GoogleAccount(this);
+    }
+  }
+}
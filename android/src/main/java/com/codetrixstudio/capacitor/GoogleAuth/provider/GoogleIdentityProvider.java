@@ -0,0 +1,27 @@
+package com.deldev.capacitor.GoogleAuth.provider;
+
+/**
+ * Boundary between the plugins and Google Sign-In. The production implementation wraps
+ * {@code GoogleSignInClient}; tests plug in an in-memory fake.
+ */
+public interface GoogleIdentityProvider {
+  /**
+   * Account cached by the SDK from a previous sign-in, or null. Must not block on the network.
+   */
+  GoogleAccount getLastSignedInAccount();
+
+  /**
+   * Signs in without showing any UI, failing with {@link ProviderException#NOT_SIGNED_IN} when
+   * user interaction is required.
+   */
+  void silentSignIn(ProviderCallback<GoogleAccount> callback);
+
+  /**
+   * Runs the full account picker flow.
+   */
+  void interactiveSignIn(ProviderCallback<GoogleAccount> callback);
+
+  void signOut(ProviderCallback<Void> callback);
+
+  void revokeAccess(ProviderCallback<Void> callback);
+}
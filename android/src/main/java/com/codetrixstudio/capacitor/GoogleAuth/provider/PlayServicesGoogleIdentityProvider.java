@@ -0,0 +1,202 @@
+package com.deldev.capacitor.GoogleAuth.provider;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+import android.util.Log;
+
+import com.google.android.gms.auth.api.signin.GoogleSignIn;
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+import com.google.android.gms.auth.api.signin.GoogleSignInClient;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.tasks.Task;
+
+import org.json.JSONObject;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link GoogleIdentityProvider} backed by Play services {@link GoogleSignInClient}.
+ *
+ * The account picker has to be started from the plugin (Capacitor ties activity results to a
+ * {@code PluginCall}), so the plugin supplies a {@link Launcher} and forwards the result back
+ * through {@link #onSignInResult(Intent)}. The picker is reached from whatever thread the silent
+ * sign-in timed out or failed on, so the launcher is always invoked on the main thread.
+ */
+public class PlayServicesGoogleIdentityProvider implements GoogleIdentityProvider {
+
+  public interface Launcher {
+    /**
+     * Starts {@code signInIntent}. Always called on the main thread.
+     */
+    void launch(Intent signInIntent);
+  }
+
+  private static final String TAG = "GoogleAuth";
+  private static final int SIGN_IN_CANCELLED = 12501;
+  private static final int NETWORK_ERROR = 7;
+
+  private final Context context;
+  private final GoogleSignInClient client;
+  private final Launcher launcher;
+  private final Executor callbackExecutor;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  private ProviderCallback<GoogleAccount> pendingInteractive;
+
+  /**
+   * Task results are handed from the main thread to {@code callbackExecutor} so result conversion
+   * stays off the main thread. When the executor refuses them the call fails with
+   * {@link ProviderException#REJECTED}.
+   */
+  public PlayServicesGoogleIdentityProvider(Context context, GoogleSignInClient client, Launcher launcher, Executor callbackExecutor) {
+    this.context = context;
+    this.client = client;
+    this.launcher = launcher;
+    this.callbackExecutor = callbackExecutor;
+  }
+
+  @Override
+  public GoogleAccount getLastSignedInAccount() {
+    return toAccount(GoogleSignIn.getLastSignedInAccount(context));
+  }
+
+  @Override
+  public void silentSignIn(ProviderCallback<GoogleAccount> callback) {
+    client.silentSignIn().addOnCompleteListener(task -> deliver(callback, () -> complete(task, callback)));
+  }
+
+  @Override
+  public void interactiveSignIn(ProviderCallback<GoogleAccount> callback) {
+    synchronized (this) {
+      pendingInteractive = callback;
+    }
+    Intent signInIntent = client.getSignInIntent();
+    mainHandler.post(() -> launcher.launch(signInIntent));
+  }
+
+  /**
+   * Completes the flow started by {@link #interactiveSignIn(ProviderCallback)}.
+   */
+  public void onSignInResult(Intent data) {
+    ProviderCallback<GoogleAccount> callback;
+    synchronized (this) {
+      callback = pendingInteractive;
+      pendingInteractive = null;
+    }
+
+    if (callback == null) {
+      Log.e(TAG, "onSignInResult: no sign-in in progress");
+      return;
+    }
+
+    if (data == null) {
+      callback.onError(new ProviderException("Sign-in failed: No data returned", null));
+      return;
+    }
+
+    GoogleSignIn.getSignedInAccountFromIntent(data).addOnCompleteListener(task -> deliver(callback, () -> complete(task, callback)));
+  }
+
+  @Override
+  public void signOut(ProviderCallback<Void> callback) {
+    client.signOut().addOnCompleteListener(task -> deliver(callback, () -> completeVoid(task, "Sign out failed", callback)));
+  }
+
+  @Override
+  public void revokeAccess(ProviderCallback<Void> callback) {
+    client.revokeAccess().addOnCompleteListener(task -> deliver(callback, () -> completeVoid(task, "Revoke access failed", callback)));
+  }
+
+  // Task listeners without an executor run on the main thread, so they only hand the result over
+  private void deliver(ProviderCallback<?> callback, Runnable completion) {
+    try {
+      callbackExecutor.execute(completion);
+    } catch (RejectedExecutionException e) {
+      callback.onError(new ProviderException(e.getMessage(), ProviderException.REJECTED, e));
+    }
+  }
+
+  private static void completeVoid(Task<Void> task, String failure, ProviderCallback<Void> callback) {
+    if (task.isSuccessful()) {
+      callback.onSuccess(null);
+    } else {
+      callback.onError(new ProviderException(failure, null, task.getException()));
+    }
+  }
+
+  private void complete(Task<GoogleSignInAccount> task, ProviderCallback<GoogleAccount> callback) {
+    if (!task.isSuccessful()) {
+      callback.onError(toProviderException(task.getException()));
+      return;
+    }
+
+    GoogleSignInAccount account = task.getResult();
+    if (account == null) {
+      callback.onError(new ProviderException("Sign-in failed: Account is null", null));
+      return;
+    }
+
+    callback.onSuccess(toAccount(account));
+  }
+
+  private static ProviderException toProviderException(Exception e) {
+    if (!(e instanceof ApiException)) {
+      return new ProviderException("An unexpected error occurred", null, e);
+    }
+
+    int statusCode = ((ApiException) e).getStatusCode();
+    if (statusCode == SIGN_IN_CANCELLED) {
+      return new ProviderException("The user canceled the sign-in flow.", ProviderException.USER_CANCELLED, e);
+    } else if (statusCode == NETWORK_ERROR) {
+      return new ProviderException("Network error occurred. Please check your connection.", ProviderException.NETWORK_ERROR, e);
+    } else if (statusCode == CommonStatusCodes.SIGN_IN_REQUIRED) {
+      return new ProviderException("User interaction is required to sign in.", ProviderException.NOT_SIGNED_IN, e);
+    }
+    return new ProviderException("Sign-in failed with code: " + statusCode, String.valueOf(statusCode), e);
+  }
+
+  private static GoogleAccount toAccount(GoogleSignInAccount account) {
+    if (account == null) {
+      return null;
+    }
+
+    return new GoogleAccount.Builder()
+        .setId(account.getId())
+        .setEmail(account.getEmail())
+        .setDisplayName(account.getDisplayName())
+        .setGivenName(account.getGivenName())
+        .setFamilyName(account.getFamilyName())
+        .setPhotoUrl(account.getPhotoUrl() != null ? account.getPhotoUrl().toString() : null)
+        .setIdToken(account.getIdToken())
+        .setServerAuthCode(account.getServerAuthCode())
+        .setIdTokenExpiresAt(parseIdTokenExpiry(account.getIdToken()))
+        .build();
+  }
+
+  /**
+   * Reads the {@code exp} claim from the JWT payload. The token is not verified, this is only
+   * used to decide whether it is worth handing out again.
+   */
+  private static long parseIdTokenExpiry(String idToken) {
+    if (idToken == null) {
+      return 0;
+    }
+
+    try {
+      String[] parts = idToken.split("\\.");
+      if (parts.length < 2) {
+        return 0;
+      }
+      byte[] payload = Base64.decode(parts[1], Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
+      return new JSONObject(new String(payload, "UTF-8")).optLong("exp", 0) * 1000;
+    } catch (Exception e) {
+      Log.w(TAG, "Unable to read ID token expiry", e);
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.deldev.capacitor.GoogleAuth.provider;
+
+/**
+ * Completion callback used by identity providers. Exactly one of the two methods is invoked,
+ * exactly once, on whatever thread the underlying SDK completes on.
+ */
+public interface ProviderCallback<T> {
+  void onSuccess(T result);
+
+  void onError(ProviderException error);
+}
@@ -0,0 +1,32 @@
+package com.deldev.capacitor.GoogleAuth.provider;
+
+/**
+ * Failure reported by an identity provider. The code is passed straight through to
+ * {@code PluginCall.reject()} so JS sees the same codes regardless of the provider in use.
+ */
+public class ProviderException extends Exception {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String USER_CANCELLED = "USER_CANCELLED";
+  public static final String NETWORK_ERROR = "NETWORK_ERROR";
+  public static final String NOT_SIGNED_IN = "NOT_SIGNED_IN";
+  public static final String TIMEOUT = "TIMEOUT";
+  // The plugin's executor refused the work because it is overloaded or was shut down
+  public static final String REJECTED = "REJECTED";
+
+  private final String code;
+
+  public ProviderException(String message, String code) {
+    this(message, code, null);
+  }
+
+  public ProviderException(String message, String code, Throwable cause) {
+    super(message, cause);
+    this.code = code;
+  }
+
+  public String getCode() {
+    return code;
+  }
+}
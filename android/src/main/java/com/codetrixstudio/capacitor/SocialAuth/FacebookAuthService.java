@@ -0,0 +1,331 @@
+package com.deldev.capacitor.SocialAuth;
+
+import android.app.Activity;
+
+import com.deldev.capacitor.GoogleAuth.PendingCalls;
+import com.deldev.capacitor.GoogleAuth.PluginExecutor;
+import com.deldev.capacitor.GoogleAuth.SessionCheck;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Facebook login and Graph logic used by {@code SocialAuth}, kept free of Capacitor types so it
+ * can be exercised on the JVM against a fake provider.
+ */
+public class FacebookAuthService {
+
+    public static final int DEFAULT_EDGE_PAGE_SIZE = 25;
+
+    // Tokens live for weeks; only those expiring within a day are refreshed on revalidation
+    private static final long REVALIDATION_MARGIN_MS = 24 * 60 * 60 * 1000;
+
+    // A token refresh that never answers must not stall the revalidation that is waiting on it
+    private static final long REVALIDATION_TIMEOUT_MS = 10000;
+
+    // Cursors the app forgot to drain or close are dropped oldest first past this many
+    private static final int MAX_OPEN_CURSORS = 8;
+
+    private final FacebookIdentityProvider provider;
+    private final PluginExecutor executor;
+    private final PendingCalls pendingCalls = new PendingCalls();
+    private final GraphRequestLimiter graphLimiter;
+    private final AtomicInteger cursorCounter = new AtomicInteger();
+    private final Map<String, GraphEdgeCursor> cursors = new LinkedHashMap<>();
+
+    public FacebookAuthService(FacebookIdentityProvider provider) {
+        this(provider, PluginExecutor.getDefault());
+    }
+
+    public FacebookAuthService(FacebookIdentityProvider provider, PluginExecutor executor) {
+        this.provider = provider;
+        this.executor = executor;
+        this.graphLimiter = new GraphRequestLimiter(provider, executor);
+    }
+
+    /**
+     * Current access token, or null when there is none or it has expired.
+     */
+    public FacebookToken getAccessToken() {
+        FacebookToken token = provider.getCurrentAccessToken();
+        return token != null && !token.isExpired() ? token : null;
+    }
+
+    public void logIn(Activity activity, List<String> permissions, ProviderCallback<FacebookToken> callback) {
+        ProviderCallback<FacebookToken> tracked = pendingCalls.track(callback);
+        try {
+            provider.logIn(activity, permissions, tracked);
+        } catch (RuntimeException e) {
+            tracked.onError(new ProviderException("Facebook login failed: " + e.getMessage(), null, e));
+        }
+    }
+
+    /**
+     * Refreshes the access token when it gets close to expiry. Tokens that are comfortably fresh
+     * are reported as such without any network call.
+     */
+    public void revalidate(ProviderCallback<SessionCheck> callback) {
+        ProviderCallback<SessionCheck> tracked = pendingCalls.track(callback);
+        try {
+            FacebookToken token = provider.getCurrentAccessToken();
+            if (token == null) {
+                tracked.onSuccess(new SessionCheck(SessionCheck.Status.SIGNED_OUT, 0));
+                return;
+            }
+            long expiresAt = token.getExpires().getTime();
+            if (expiresAt - System.currentTimeMillis() > REVALIDATION_MARGIN_MS) {
+                tracked.onSuccess(new SessionCheck(SessionCheck.Status.FRESH, expiresAt));
+                return;
+            }
+
+            AtomicBoolean settled = new AtomicBoolean();
+            ScheduledFuture<?> timeout = executor.schedule(PluginExecutor.Lane.BACKGROUND, () -> {
+                if (settled.compareAndSet(false, true)) {
+                    tracked.onError(new ProviderException("Facebook session revalidation timed out", ProviderException.TIMEOUT));
+                }
+            }, REVALIDATION_TIMEOUT_MS);
+
+            provider.refreshAccessToken(new ProviderCallback<FacebookToken>() {
+                @Override
+                public void onSuccess(FacebookToken refreshed) {
+                    if (settled.compareAndSet(false, true)) {
+                        timeout.cancel(false);
+                        tracked.onSuccess(new SessionCheck(SessionCheck.Status.REFRESHED, refreshed.getExpires().getTime()));
+                    }
+                }
+
+                @Override
+                public void onError(ProviderException error) {
+                    if (!settled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    timeout.cancel(false);
+                    if (ProviderException.NOT_SIGNED_IN.equals(error.getCode())) {
+                        tracked.onSuccess(new SessionCheck(SessionCheck.Status.SIGNED_OUT, 0));
+                    } else {
+                        tracked.onError(error);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            tracked.onError(new ProviderException(e.getMessage(), ProviderException.REJECTED, e));
+        } catch (RuntimeException e) {
+            tracked.onError(new ProviderException("Facebook session revalidation failed: " + e.getMessage(), null, e));
+        }
+    }
+
+    /**
+     * Fetches {@code /me} with the current access token.
+     */
+    public void getProfile(List<String> fields, ProviderCallback<JSONObject> callback) {
+        FacebookToken token = getAccessToken();
+        if (token == null) {
+            pendingCalls.track(callback)
+                    .onError(new ProviderException("No valid Facebook access token available", ProviderException.NOT_SIGNED_IN));
+            return;
+        }
+
+        getProfile(token, fields, callback);
+    }
+
+    public void getProfile(FacebookToken token, List<String> fields, ProviderCallback<JSONObject> callback) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("fields", String.join(",", fields));
+        graphRequest(token, "me", parameters, callback);
+    }
+
+    /**
+     * Removes every permission granted to the app for {@code token}. The token is passed in so
+     * revocation can run alongside {@link #logOut()}, which clears the current token.
+     */
+    public void revokePermissions(FacebookToken token, ProviderCallback<Void> callback) {
+        ProviderCallback<Void> tracked = pendingCalls.track(callback);
+        try {
+            graphLimiter.revokePermissions(token, tracked);
+        } catch (RuntimeException e) {
+            tracked.onError(new ProviderException("Revoking Facebook permissions failed: " + e.getMessage(), null, e));
+        }
+    }
+
+    /**
+     * Fetches {@code /me} and {@code /me/picture} at the same time and merges the picture into the
+     * profile under {@code picture.data}, the shape a {@code picture} field request returns. A
+     * failed picture request still delivers the profile without it.
+     */
+    public void getProfileWithPicture(FacebookToken token, List<String> fields, int pictureSize, ProviderCallback<JSONObject> callback) {
+        ProviderCallback<JSONObject> tracked = pendingCalls.track(callback);
+
+        List<String> profileFields = new ArrayList<>(fields);
+        profileFields.remove("picture");
+        Map<String, String> pictureParameters = new HashMap<>();
+        pictureParameters.put("redirect", "false");
+        pictureParameters.put("width", String.valueOf(pictureSize));
+        pictureParameters.put("height", String.valueOf(pictureSize));
+
+        AtomicReference<JSONObject> profile = new AtomicReference<>();
+        AtomicReference<ProviderException> profileError = new AtomicReference<>();
+        AtomicReference<JSONObject> picture = new AtomicReference<>();
+        AtomicInteger remaining = new AtomicInteger(2);
+        Runnable mergeIfDone = () -> {
+            if (remaining.decrementAndGet() != 0) {
+                return;
+            }
+            if (profileError.get() != null) {
+                tracked.onError(profileError.get());
+                return;
+            }
+
+            JSONObject merged = profile.get();
+            if (picture.get() != null && picture.get().has("data")) {
+                try {
+                    // The profile may be shared with coalesced /me requests, so merge into a copy
+                    JSONObject copy = new JSONObject(merged.toString());
+                    copy.put("picture", picture.get());
+                    merged = copy;
+                } catch (JSONException e) {
+                    // Deliver the profile without the picture
+                }
+            }
+            tracked.onSuccess(merged);
+        };
+
+        getProfile(token, profileFields, new ProviderCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject result) {
+                profile.set(result);
+                mergeIfDone.run();
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                profileError.set(error);
+                mergeIfDone.run();
+            }
+        });
+        graphRequest(token, "me/picture", pictureParameters, new ProviderCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject result) {
+                picture.set(result);
+                mergeIfDone.run();
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                mergeIfDone.run();
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over {@code edge} (e.g. {@code "friends"}, or a full path such as
+     * {@code "12345/photos"}). No request is made until the first page is asked for.
+     */
+    public GraphEdgeCursor openEdge(String edge, List<String> fields, int pageSize) throws ProviderException {
+        FacebookToken token = getAccessToken();
+        if (token == null) {
+            throw new ProviderException("No valid Facebook access token available", ProviderException.NOT_SIGNED_IN);
+        }
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("limit", String.valueOf(pageSize > 0 ? pageSize : DEFAULT_EDGE_PAGE_SIZE));
+        if (fields != null && !fields.isEmpty()) {
+            parameters.put("fields", String.join(",", fields));
+        }
+
+        String graphPath = edge.contains("/") ? edge : "me/" + edge;
+        String id = "edge-" + cursorCounter.incrementAndGet();
+        GraphEdgeCursor cursor = new GraphEdgeCursor(id, token, graphPath, parameters, this, exhausted -> forgetEdge(exhausted.getId()));
+        synchronized (cursors) {
+            cursors.put(id, cursor);
+            Iterator<String> it = cursors.keySet().iterator();
+            while (cursors.size() > MAX_OPEN_CURSORS && it.hasNext()) {
+                cursors.get(it.next()).close();
+                it.remove();
+            }
+        }
+        return cursor;
+    }
+
+    /**
+     * Open cursor with the given id, or null when it was closed, exhausted or evicted.
+     */
+    public GraphEdgeCursor getEdge(String id) {
+        synchronized (cursors) {
+            return cursors.get(id);
+        }
+    }
+
+    public void closeEdge(String id) {
+        GraphEdgeCursor cursor = forgetEdge(id);
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+
+    // Drained cursors are only dropped from the map, so they keep reporting done to their holder
+    private GraphEdgeCursor forgetEdge(String id) {
+        synchronized (cursors) {
+            return cursors.remove(id);
+        }
+    }
+
+    /**
+     * Number of cursors that have not been drained or closed.
+     */
+    public int getOpenEdgeCount() {
+        synchronized (cursors) {
+            return cursors.size();
+        }
+    }
+
+    /**
+     * Signs out and closes every open edge cursor, so no page of the previous user can be
+     * fetched afterwards.
+     */
+    public void logOut() {
+        synchronized (cursors) {
+            for (GraphEdgeCursor cursor : cursors.values()) {
+                cursor.close();
+            }
+            cursors.clear();
+        }
+        provider.logOut();
+    }
+
+    /**
+     * Rate limiter and request merger all Graph requests go through.
+     */
+    public GraphRequestLimiter getGraphLimiter() {
+        return graphLimiter;
+    }
+
+    /**
+     * Number of calls handed to this service that have not completed yet.
+     */
+    public int getPendingCount() {
+        return pendingCalls.size();
+    }
+
+    void graphRequest(FacebookToken token, String graphPath, Map<String, String> parameters, ProviderCallback<JSONObject> callback) {
+        ProviderCallback<JSONObject> tracked = pendingCalls.track(callback);
+        try {
+            graphLimiter.request(token, graphPath, parameters, tracked);
+        } catch (RuntimeException e) {
+            tracked.onError(new ProviderException("Graph request failed: " + e.getMessage(), null, e));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.deldev.capacitor.SocialAuth;
+
+import android.app.Activity;
+
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boundary between {@code SocialAuth} and the Facebook SDK. The production implementation wraps
+ * {@code LoginManager}, {@code AccessToken} and {@code GraphRequest}; tests plug in an in-memory
+ * fake.
+ */
+public interface FacebookIdentityProvider {
+    /**
+     * Current access token, or null when nobody is logged in.
+     */
+    FacebookToken getCurrentAccessToken();
+
+    /**
+     * Runs the login flow. A cancelled login succeeds with a null token.
+     */
+    void logIn(Activity activity, List<String> permissions, ProviderCallback<FacebookToken> callback);
+
+    /**
+     * Executes a Graph API GET request for {@code graphPath} (e.g. {@code "me"}).
+     */
+    void graphRequest(FacebookToken token, String graphPath, Map<String, String> parameters, ProviderCallback<JSONObject> callback);
+
+    /**
+     * Extends the current access token. Fails with {@link ProviderException#NOT_SIGNED_IN} when
+     * there is no longer a session to extend.
+     */
+    void refreshAccessToken(ProviderCallback<FacebookToken> callback);
+
+    /**
+     * Revokes every permission granted to the app, which also invalidates {@code token}.
+     */
+    void revokePermissions(FacebookToken token, ProviderCallback<Void> callback);
+
+    void logOut();
+}
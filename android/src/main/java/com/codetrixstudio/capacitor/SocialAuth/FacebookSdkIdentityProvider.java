@@ -0,0 +1,168 @@
+package com.deldev.capacitor.SocialAuth;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import com.facebook.AccessToken;
+import com.facebook.CallbackManager;
+import com.facebook.FacebookCallback;
+import com.facebook.FacebookException;
+import com.facebook.FacebookRequestError;
+import com.facebook.GraphRequest;
+import com.facebook.HttpMethod;
+import com.facebook.login.LoginManager;
+import com.facebook.login.LoginResult;
+
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link FacebookIdentityProvider} backed by the Facebook Android SDK. The SDK must be
+ * initialized before this is constructed.
+ */
+public class FacebookSdkIdentityProvider implements FacebookIdentityProvider {
+
+    private final CallbackManager callbackManager = CallbackManager.Factory.create();
+    private final LoginManager loginManager = LoginManager.getInstance();
+    private final Executor callbackExecutor;
+
+    /**
+     * SDK callbacks arrive on the main thread and are handed to {@code callbackExecutor} so the
+     * JSON handling that follows stays off it.
+     */
+    public FacebookSdkIdentityProvider(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    @Override
+    public FacebookToken getCurrentAccessToken() {
+        return toToken(AccessToken.getCurrentAccessToken());
+    }
+
+    @Override
+    public void logIn(Activity activity, List<String> permissions, ProviderCallback<FacebookToken> callback) {
+        loginManager.registerCallback(callbackManager, new FacebookCallback<LoginResult>() {
+            @Override
+            public void onSuccess(LoginResult result) {
+                deliver(callback, () -> callback.onSuccess(toToken(result.getAccessToken())));
+            }
+
+            @Override
+            public void onCancel() {
+                deliver(callback, () -> callback.onSuccess(null));
+            }
+
+            @Override
+            public void onError(FacebookException error) {
+                deliver(callback, () ->
+                        callback.onError(new ProviderException("Facebook login failed: " + error.getMessage(), null, error)));
+            }
+        });
+
+        loginManager.logInWithReadPermissions(activity, permissions);
+    }
+
+    @Override
+    public void graphRequest(FacebookToken token, String graphPath, Map<String, String> parameters, ProviderCallback<JSONObject> callback) {
+        Bundle bundle = new Bundle();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            bundle.putString(parameter.getKey(), parameter.getValue());
+        }
+
+        GraphRequest request = new GraphRequest(sdkToken(token), graphPath, bundle, HttpMethod.GET, response -> deliver(callback, () -> {
+            FacebookRequestError error = response.getError();
+            if (error != null) {
+                callback.onError(new ProviderException(error.getErrorMessage(), String.valueOf(error.getErrorCode()), error.getException()));
+            } else {
+                callback.onSuccess(response.getJSONObject());
+            }
+        }));
+        request.executeAsync();
+    }
+
+    @Override
+    public void refreshAccessToken(ProviderCallback<FacebookToken> callback) {
+        AccessToken.refreshCurrentAccessTokenAsync(new AccessToken.AccessTokenRefreshCallback() {
+            @Override
+            public void OnTokenRefreshed(AccessToken accessToken) {
+                deliver(callback, () -> callback.onSuccess(toToken(accessToken)));
+            }
+
+            @Override
+            public void OnTokenRefreshFailed(FacebookException exception) {
+                // The SDK drops the current token when the session was invalidated server side
+                String code = AccessToken.getCurrentAccessToken() == null ? ProviderException.NOT_SIGNED_IN : null;
+                deliver(callback, () ->
+                        callback.onError(new ProviderException("Facebook token refresh failed: " + exception.getMessage(), code, exception)));
+            }
+        });
+    }
+
+    @Override
+    public void revokePermissions(FacebookToken token, ProviderCallback<Void> callback) {
+        GraphRequest request = new GraphRequest(sdkToken(token), "me/permissions", null, HttpMethod.DELETE, response -> deliver(callback, () -> {
+            FacebookRequestError error = response.getError();
+            if (error != null) {
+                callback.onError(new ProviderException(error.getErrorMessage(), String.valueOf(error.getErrorCode()), error.getException()));
+            } else {
+                callback.onSuccess(null);
+            }
+        }));
+        request.executeAsync();
+    }
+
+    @Override
+    public void logOut() {
+        loginManager.logOut();
+    }
+
+    // Hands an SDK completion to the callback executor, failing the call when it refuses the work
+    private void deliver(ProviderCallback<?> callback, Runnable completion) {
+        try {
+            callbackExecutor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            callback.onError(new ProviderException(e.getMessage(), ProviderException.REJECTED, e));
+        }
+    }
+
+    /**
+     * Forwards activity results to the SDK so pending logins complete.
+     */
+    public boolean onActivityResult(int requestCode, int resultCode, Intent data) {
+        return callbackManager.onActivityResult(requestCode, resultCode, data);
+    }
+
+    private static AccessToken sdkToken(FacebookToken token) {
+        if (token instanceof SdkToken) {
+            return ((SdkToken) token).accessToken;
+        }
+        return AccessToken.getCurrentAccessToken();
+    }
+
+    private static FacebookToken toToken(AccessToken accessToken) {
+        return accessToken != null ? new SdkToken(accessToken) : null;
+    }
+
+    private static class SdkToken extends FacebookToken {
+
+        private final AccessToken accessToken;
+
+        SdkToken(AccessToken accessToken) {
+            super(
+                    accessToken.getToken(),
+                    accessToken.getUserId(),
+                    accessToken.getExpires(),
+                    accessToken.getPermissions(),
+                    accessToken.getDeclinedPermissions());
+            this.accessToken = accessToken;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.deldev.capacitor.SocialAuth;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Provider-neutral snapshot of a Facebook access token.
+ */
+public class FacebookToken {
+
+    private final String token;
+    private final String userId;
+    private final Date expires;
+    private final Set<String> permissions;
+    private final Set<String> declinedPermissions;
+
+    public FacebookToken(String token, String userId, Date expires, Set<String> permissions, Set<String> declinedPermissions) {
+        this.token = token;
+        this.userId = userId;
+        this.expires = expires;
+        this.permissions = Collections.unmodifiableSet(permissions);
+        this.declinedPermissions = Collections.unmodifiableSet(declinedPermissions);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Date getExpires() {
+        return expires;
+    }
+
+    public Set<String> getPermissions() {
+        return permissions;
+    }
+
+    public Set<String> getDeclinedPermissions() {
+        return declinedPermissions;
+    }
+
+    public boolean isExpired() {
+        return expires.getTime() <= System.currentTimeMillis();
+    }
+}
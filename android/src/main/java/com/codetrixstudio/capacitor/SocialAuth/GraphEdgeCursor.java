@@ -0,0 +1,175 @@
+package com.deldev.capacitor.SocialAuth;
+
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pull-based iterator over a Graph API edge such as {@code me/friends}.
+ *
+ * Nothing is fetched until {@link #next(ProviderCallback)} is called, and only one page is held
+ * at a time, so memory stays bounded by the page size no matter how large the edge is. Follow-up
+ * requests reuse the query of the {@code paging.next} link, the same way the SDK builds paged
+ * requests, which works for both cursor and offset based edges.
+ */
+public class GraphEdgeCursor {
+
+    public static final String CURSOR_BUSY = "CURSOR_BUSY";
+    public static final String CURSOR_NOT_FOUND = "CURSOR_NOT_FOUND";
+
+    public static class Page {
+
+        private final JSONArray items;
+        private final boolean done;
+
+        Page(JSONArray items, boolean done) {
+            this.items = items;
+            this.done = done;
+        }
+
+        public JSONArray getItems() {
+            return items;
+        }
+
+        /**
+         * True when this was the last page of the edge.
+         */
+        public boolean isDone() {
+            return done;
+        }
+    }
+
+    interface Listener {
+        void onExhausted(GraphEdgeCursor cursor);
+    }
+
+    private final String id;
+    private final FacebookToken token;
+    private final String graphPath;
+    private final FacebookAuthService service;
+    private final Listener listener;
+    private final AtomicBoolean fetching = new AtomicBoolean();
+
+    // Parameters of the next page request, null once the edge is exhausted
+    private volatile Map<String, String> nextParameters;
+    private volatile boolean closed;
+
+    GraphEdgeCursor(String id, FacebookToken token, String graphPath, Map<String, String> parameters, FacebookAuthService service, Listener listener) {
+        this.id = id;
+        this.token = token;
+        this.graphPath = graphPath;
+        this.nextParameters = parameters;
+        this.service = service;
+        this.listener = listener;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Fetches the next page. Only one page can be requested at a time; overlapping calls fail
+     * with {@link #CURSOR_BUSY}, and calls on a closed cursor with {@link #CURSOR_NOT_FOUND}.
+     */
+    public void next(ProviderCallback<Page> callback) {
+        if (closed) {
+            callback.onError(closedError());
+            return;
+        }
+        if (!fetching.compareAndSet(false, true)) {
+            callback.onError(new ProviderException("A page is already being fetched for this cursor", CURSOR_BUSY));
+            return;
+        }
+
+        Map<String, String> parameters = nextParameters;
+        if (parameters == null) {
+            fetching.set(false);
+            callback.onSuccess(new Page(new JSONArray(), true));
+            return;
+        }
+
+        service.graphRequest(token, graphPath, parameters, new ProviderCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject response) {
+                if (closed) {
+                    // Closed while the page was loading, e.g. by a sign-out
+                    fetching.set(false);
+                    callback.onError(closedError());
+                    return;
+                }
+
+                // The SDK already parsed this page, hand its array over as is
+                JSONArray data = response.optJSONArray("data");
+                JSONArray items = data != null ? data : new JSONArray();
+
+                Map<String, String> following = items.length() > 0 ? nextPageParameters(response) : null;
+                nextParameters = following;
+                fetching.set(false);
+                if (following == null) {
+                    listener.onExhausted(GraphEdgeCursor.this);
+                }
+                callback.onSuccess(new Page(items, following == null));
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                // The same page can be requested again
+                fetching.set(false);
+                callback.onError(closed ? closedError() : error);
+            }
+        });
+    }
+
+    /**
+     * Stops the cursor. Later pages, and a page that is still loading, fail with
+     * {@link #CURSOR_NOT_FOUND}.
+     */
+    void close() {
+        closed = true;
+        nextParameters = null;
+    }
+
+    private static ProviderException closedError() {
+        return new ProviderException("Cursor is closed, exhausted or was never opened", CURSOR_NOT_FOUND);
+    }
+
+    /**
+     * Query parameters of the {@code paging.next} link, without the access token which the
+     * request supplies itself. Returns null when there is no next page.
+     */
+    static Map<String, String> nextPageParameters(JSONObject response) {
+        JSONObject paging = response.optJSONObject("paging");
+        String next = paging != null ? paging.optString("next", null) : null;
+        if (next == null || next.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String query = new URI(next).getRawQuery();
+            Map<String, String> parameters = new HashMap<>();
+            if (query != null) {
+                for (String pair : query.split("&")) {
+                    int separator = pair.indexOf('=');
+                    String key = URLDecoder.decode(separator >= 0 ? pair.substring(0, separator) : pair, "UTF-8");
+                    String value = separator >= 0 ? URLDecoder.decode(pair.substring(separator + 1), "UTF-8") : "";
+                    if (!key.isEmpty() && !"access_token".equals(key)) {
+                        parameters.put(key, value);
+                    }
+                }
+            }
+            return parameters;
+        } catch (URISyntaxException | UnsupportedEncodingException e) {
+            return null;
+        }
+    }
+}
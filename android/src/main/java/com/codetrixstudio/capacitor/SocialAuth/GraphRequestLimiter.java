@@ -0,0 +1,228 @@
+package com.deldev.capacitor.SocialAuth;
+
+import com.deldev.capacitor.GoogleAuth.PluginExecutor;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sits in front of every Graph API request made by {@code SocialAuth}.
+ *
+ * Identical requests (same token, path and parameters, with {@code fields} compared as a set)
+ * that are already in flight are merged into one, and the remaining requests are paced by a
+ * {@link TokenBucket}. Requests that would have to wait longer than {@code maxWaitMs} for a slot
+ * are rejected with {@link #RATE_LIMITED} instead of piling up.
+ */
+public class GraphRequestLimiter {
+
+    public static final String RATE_LIMITED = "RATE_LIMITED";
+
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 5;
+    public static final int DEFAULT_BURST = 10;
+    public static final long DEFAULT_MAX_WAIT_MS = 10000;
+
+    private final FacebookIdentityProvider provider;
+    private final PluginExecutor executor;
+    private final Map<String, List<ProviderCallback<JSONObject>>> inFlight = new HashMap<>();
+
+    private volatile TokenBucket bucket = new TokenBucket(DEFAULT_REQUESTS_PER_SECOND, DEFAULT_BURST);
+    private volatile long maxWaitMs = DEFAULT_MAX_WAIT_MS;
+
+    private final AtomicInteger requested = new AtomicInteger();
+    private final AtomicInteger executed = new AtomicInteger();
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+
+    public GraphRequestLimiter(FacebookIdentityProvider provider) {
+        this(provider, PluginExecutor.getDefault());
+    }
+
+    public GraphRequestLimiter(FacebookIdentityProvider provider, PluginExecutor executor) {
+        this.provider = provider;
+        this.executor = executor;
+    }
+
+    /**
+     * @throws IllegalArgumentException when {@code requestsPerSecond} or {@code burst} is not
+     *     positive, or {@code maxWaitMs} is negative
+     */
+    public void setRateLimit(double requestsPerSecond, int burst, long maxWaitMs) {
+        checkRateLimit(requestsPerSecond, burst, maxWaitMs);
+        this.bucket = new TokenBucket(requestsPerSecond, burst);
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * Validates rate limit settings without applying them, so callers can reject bad input before
+     * doing any other work.
+     */
+    public static void checkRateLimit(double requestsPerSecond, int burst, long maxWaitMs) {
+        if (!(requestsPerSecond > 0) || Double.isInfinite(requestsPerSecond)) {
+            throw new IllegalArgumentException("requestsPerSecond must be a positive number, got " + requestsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1, got " + burst);
+        }
+        if (maxWaitMs < 0) {
+            throw new IllegalArgumentException("maxWait must not be negative, got " + maxWaitMs);
+        }
+    }
+
+    public void request(FacebookToken token, String graphPath, Map<String, String> parameters, ProviderCallback<JSONObject> callback) {
+        requested.incrementAndGet();
+        String key = keyFor(token, graphPath, parameters);
+
+        synchronized (inFlight) {
+            List<ProviderCallback<JSONObject>> waiters = inFlight.get(key);
+            if (waiters != null) {
+                coalesced.incrementAndGet();
+                waiters.add(callback);
+                return;
+            }
+            waiters = new ArrayList<>();
+            waiters.add(callback);
+            inFlight.put(key, waiters);
+        }
+
+        pace(() -> dispatch(key, token, graphPath, parameters), error -> completeError(key, error));
+    }
+
+    /**
+     * Sends {@code DELETE me/permissions}. It is paced and counted like any other request but never
+     * merged, since every revocation has to reach the Graph API.
+     */
+    public void revokePermissions(FacebookToken token, ProviderCallback<Void> callback) {
+        requested.incrementAndGet();
+        pace(() -> {
+            executed.incrementAndGet();
+            try {
+                provider.revokePermissions(token, callback);
+            } catch (RuntimeException e) {
+                callback.onError(new ProviderException("Revoking Facebook permissions failed: " + e.getMessage(), null, e));
+            }
+        }, callback::onError);
+    }
+
+    public int getRequestedCount() {
+        return requested.get();
+    }
+
+    /**
+     * Requests that actually reached the Graph API.
+     */
+    public int getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Requests answered by piggybacking on an identical in-flight request.
+     */
+    public int getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Requests that had to wait for a token before being sent.
+     */
+    public int getThrottledCount() {
+        return throttled.get();
+    }
+
+    /**
+     * Requests rejected because the wait for a token exceeded the limit.
+     */
+    public int getRejectedCount() {
+        return rejected.get();
+    }
+
+    private interface Failure {
+        void fail(ProviderException error);
+    }
+
+    // Sends right away, after a wait for a token, or fails when the wait would be too long
+    private void pace(Runnable send, Failure failure) {
+        TokenBucket slot = bucket;
+        long wait = slot.reserve();
+        if (wait > maxWaitMs) {
+            slot.release();
+            rejected.incrementAndGet();
+            failure.fail(new ProviderException("Graph API request rate limit exceeded", RATE_LIMITED));
+        } else if (wait > 0) {
+            throttled.incrementAndGet();
+            try {
+                executor.schedule(PluginExecutor.Lane.USER, send, wait);
+            } catch (RejectedExecutionException e) {
+                slot.release();
+                failure.fail(new ProviderException(e.getMessage(), ProviderException.REJECTED, e));
+            }
+        } else {
+            send.run();
+        }
+    }
+
+    private void dispatch(String key, FacebookToken token, String graphPath, Map<String, String> parameters) {
+        executed.incrementAndGet();
+        try {
+            provider.graphRequest(token, graphPath, parameters, new ProviderCallback<JSONObject>() {
+                @Override
+                public void onSuccess(JSONObject result) {
+                    for (ProviderCallback<JSONObject> waiter : takeWaiters(key)) {
+                        waiter.onSuccess(result);
+                    }
+                }
+
+                @Override
+                public void onError(ProviderException error) {
+                    completeError(key, error);
+                }
+            });
+        } catch (RuntimeException e) {
+            completeError(key, new ProviderException("Graph request failed: " + e.getMessage(), null, e));
+        }
+    }
+
+    private void completeError(String key, ProviderException error) {
+        for (ProviderCallback<JSONObject> waiter : takeWaiters(key)) {
+            waiter.onError(error);
+        }
+    }
+
+    private List<ProviderCallback<JSONObject>> takeWaiters(String key) {
+        synchronized (inFlight) {
+            List<ProviderCallback<JSONObject>> waiters = inFlight.remove(key);
+            return waiters != null ? waiters : new ArrayList<>();
+        }
+    }
+
+    private static String keyFor(FacebookToken token, String graphPath, Map<String, String> parameters) {
+        StringBuilder key = new StringBuilder();
+        key.append(token != null ? token.getToken() : "").append('|').append(graphPath);
+
+        for (Map.Entry<String, String> parameter : new TreeMap<>(parameters).entrySet()) {
+            String value = parameter.getValue();
+            if ("fields".equals(parameter.getKey()) && value != null) {
+                // Field order does not change the response, compare as a set
+                TreeSet<String> fields = new TreeSet<>();
+                for (String field : value.split(",")) {
+                    if (!field.trim().isEmpty()) {
+                        fields.add(field.trim());
+                    }
+                }
+                value = String.join(",", fields);
+            }
+            key.append('|').append(parameter.getKey()).append('=').append(value);
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,210 @@
+package com.deldev.capacitor.SocialAuth;
+
+import com.deldev.capacitor.GoogleAuth.PluginExecutor;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Starts a set of asynchronous steps at once and reports the outcome of each one when all of them
+ * have finished or the shared deadline has passed, whichever comes first. Steps added with
+ * {@link #addAfter(String, String, Step)} wait for another step instead of starting right away.
+ */
+public class ParallelSteps {
+
+    public interface Step {
+        void run(ProviderCallback<Void> callback);
+    }
+
+    public interface Listener {
+        void onComplete(Map<String, StepResult> results);
+    }
+
+    public enum Status {
+        OK("ok"),
+        FAILED("failed"),
+        TIMEOUT("timeout"),
+        SKIPPED("skipped");
+
+        private final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static class StepResult {
+
+        private final Status status;
+        private final ProviderException error;
+
+        StepResult(Status status, ProviderException error) {
+            this.status = status;
+            this.error = error;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public ProviderException getError() {
+            return error;
+        }
+    }
+
+    private final PluginExecutor executor;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private final Map<String, String> prerequisites = new HashMap<>();
+    private final List<String> skipped = new ArrayList<>();
+
+    public ParallelSteps() {
+        this(PluginExecutor.getDefault());
+    }
+
+    public ParallelSteps(PluginExecutor executor) {
+        this.executor = executor;
+    }
+
+    public ParallelSteps add(String name, Step step) {
+        steps.put(name, step);
+        return this;
+    }
+
+    /**
+     * Adds a step that starts once {@code prerequisite} has completed, whatever its outcome. It
+     * still starts when the prerequisite only completes after the deadline, so cleanup is not lost,
+     * but is then reported as timed out like the prerequisite.
+     */
+    public ParallelSteps addAfter(String name, String prerequisite, Step step) {
+        steps.put(name, step);
+        prerequisites.put(name, prerequisite);
+        return this;
+    }
+
+    /**
+     * Records a step that does not apply (e.g. the provider was never initialized).
+     */
+    public ParallelSteps skip(String name) {
+        skipped.add(name);
+        return this;
+    }
+
+    /**
+     * Starts the steps and reports their results to {@code listener} once all of them completed
+     * or {@code timeoutMs} passed.
+     *
+     * @throws RejectedExecutionException when the executor was shut down; no step is started then
+     */
+    public void run(long timeoutMs, Listener listener) {
+        Map<String, StepResult> results = new LinkedHashMap<>();
+        for (String name : skipped) {
+            results.put(name, new StepResult(Status.SKIPPED, null));
+        }
+
+        if (steps.isEmpty()) {
+            listener.onComplete(results);
+            return;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(steps.size());
+        Object lock = new Object();
+        ScheduledFuture<?>[] deadline = new ScheduledFuture<?>[1];
+
+        Runnable finishIfDone = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                if (deadline[0] != null) {
+                    deadline[0].cancel(false);
+                }
+                Map<String, StepResult> snapshot;
+                synchronized (lock) {
+                    snapshot = new LinkedHashMap<>(results);
+                }
+                listener.onComplete(snapshot);
+            }
+        };
+
+        synchronized (lock) {
+            deadline[0] = executor.schedule(PluginExecutor.Lane.USER, () -> {
+                for (String name : steps.keySet()) {
+                    boolean recorded;
+                    synchronized (lock) {
+                        recorded = results.containsKey(name);
+                        if (!recorded) {
+                            results.put(name, new StepResult(Status.TIMEOUT, null));
+                        }
+                    }
+                    if (!recorded) {
+                        finishIfDone.run();
+                    }
+                }
+            }, timeoutMs);
+        }
+
+        for (String name : steps.keySet()) {
+            // Steps waiting on a skipped or unknown step have nothing to wait for
+            if (!steps.containsKey(prerequisites.get(name))) {
+                start(name, results, lock, finishIfDone);
+            }
+        }
+    }
+
+    private void start(String name, Map<String, StepResult> results, Object lock, Runnable finishIfDone) {
+        AtomicBoolean completed = new AtomicBoolean();
+        ProviderCallback<Void> callback = new ProviderCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                record(new StepResult(Status.OK, null));
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                record(new StepResult(Status.FAILED, error));
+            }
+
+            private void record(StepResult result) {
+                if (!completed.compareAndSet(false, true)) {
+                    return;
+                }
+
+                boolean recorded = false;
+                synchronized (lock) {
+                    // Completions after the deadline are not reported
+                    if (!results.containsKey(name)) {
+                        results.put(name, result);
+                        recorded = true;
+                    }
+                }
+
+                for (Map.Entry<String, String> prerequisite : prerequisites.entrySet()) {
+                    if (name.equals(prerequisite.getValue())) {
+                        start(prerequisite.getKey(), results, lock, finishIfDone);
+                    }
+                }
+                if (recorded) {
+                    finishIfDone.run();
+                }
+            }
+        };
+
+        try {
+            steps.get(name).run(callback);
+        } catch (RejectedExecutionException e) {
+            callback.onError(new ProviderException(e.getMessage(), ProviderException.REJECTED, e));
+        } catch (RuntimeException e) {
+            callback.onError(new ProviderException(e.getMessage(), null, e));
+        }
+    }
+}
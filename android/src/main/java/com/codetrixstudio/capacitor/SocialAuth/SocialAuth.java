@@ -1,20 +1,27 @@
 package com.deldev.capacitor.SocialAuth;
 
-import android.accounts.Account;
 import android.content.Intent;
 import android.util.Log;
 
 import androidx.activity.result.ActivityResult;
 
+import com.deldev.capacitor.GoogleAuth.AvatarCache;
+import com.deldev.capacitor.GoogleAuth.BitmapAvatarResizer;
+import com.deldev.capacitor.GoogleAuth.DebouncedTask;
+import com.deldev.capacitor.GoogleAuth.GoogleAuthService;
+import com.deldev.capacitor.GoogleAuth.GoogleSignInResult;
+import com.deldev.capacitor.GoogleAuth.LastSessionCheck;
+import com.deldev.capacitor.GoogleAuth.PluginExecutor;
+import com.deldev.capacitor.GoogleAuth.SessionCheck;
+import com.deldev.capacitor.GoogleAuth.SignInTier;
 import com.deldev.capacitor.GoogleAuth.capacitorgoogleauth.R;
-import com.facebook.AccessToken;
-import com.facebook.CallbackManager;
-import com.facebook.FacebookCallback;
-import com.facebook.FacebookException;
+import com.deldev.capacitor.GoogleAuth.provider.GoogleAccount;
+import com.deldev.capacitor.GoogleAuth.provider.PlayServicesGoogleIdentityProvider;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
 import com.facebook.FacebookSdk;
-import com.facebook.GraphRequest;
 import com.facebook.login.LoginManager;
-import com.facebook.login.LoginResult;
+import com.getcapacitor.Bridge;
 import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
@@ -26,44 +33,83 @@ import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
 import com.google.android.gms.auth.api.signin.GoogleSignInClient;
 import com.google.android.gms.auth.api.signin.GoogleSignInOptions;
-import com.google.android.gms.common.api.ApiException;
 import com.google.android.gms.common.api.Scope;
-import com.google.android.gms.tasks.Task;
 
 import org.json.JSONObject;
 
+import java.io.File;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @CapacitorPlugin(name = "SocialAuth")
 public class SocialAuth extends Plugin {
 
     private static final String TAG = "SocialAuth";
-    private static final int SIGN_IN_CANCELLED = 12501;
-    private static final int NETWORK_ERROR = 7;
+    private static final int DEFAULT_AVATAR_SIZE = 96;
+    private static final long AVATAR_MEMORY_BYTES = 4 * 1024 * 1024;
+    private static final long AVATAR_DISK_BYTES = 20 * 1024 * 1024;
+    private static final long DEFAULT_SIGN_OUT_ALL_TIMEOUT_MS = 10000;
+    private static final long DEFAULT_RESUME_DEBOUNCE_MS = 1000;
+    private static final String SESSION_REVALIDATED_EVENT = "sessionRevalidated";
+    private static final String FACEBOOK_PROFILE_EVENT = "facebookProfile";
 
     // Google Sign-In
     private GoogleSignInClient googleSignInClient;
+    private PlayServicesGoogleIdentityProvider googleProvider;
+    private GoogleAuthService googleAuthService;
 
     // Facebook Sign-In
-    private CallbackManager facebookCallbackManager;
-    private final LoginManager facebookLoginManager = LoginManager.getInstance();
+    private FacebookSdkIdentityProvider facebookProvider;
+    private FacebookAuthService facebookAuthService;
+
+    // Bounded lanes for callbacks, conversion and background work, shut down with the plugin
+    private final PluginExecutor executor = new PluginExecutor("SocialAuth");
+
+    // Avatar cache
+    private AvatarCache avatarCache;
+    private int avatarSize = DEFAULT_AVATAR_SIZE;
+
+    // Collapses the resume events of a foreground transition into one background session check
+    private DebouncedTask resumeRevalidation;
+
+    // Last published sessionRevalidated event, for listeners added after it fired; cleared on sign-out
+    private final LastSessionCheck<JSObject> lastSessionCheck = new LastSessionCheck<>();
 
     @Override
     public void load() {
         Log.d(TAG, "SocialAuth Plugin loaded");
     }
 
+    @Override
+    protected void handleOnResume() {
+        super.handleOnResume();
+        if (resumeRevalidation != null) {
+            resumeRevalidation.trigger();
+        }
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        if (resumeRevalidation != null) {
+            resumeRevalidation.cancel();
+        }
+        executor.shutdown();
+        super.handleOnDestroy();
+    }
+
     // ============================================================================
     // GOOGLE AUTH IMPLEMENTATION
     // ============================================================================
 
-    private void loadGoogleSignInClient(String clientId, boolean forceCodeForRefreshToken, String[] scopeArray) {
+    private void loadGoogleSignInClient(String clientId, boolean forceCodeForRefreshToken, String[] scopeArray, long silentSignInTimeoutMs) {
         try {
             GoogleSignInOptions.Builder builder = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN)
                     .requestIdToken(clientId)
@@ -95,6 +141,10 @@ public class SocialAuth extends Plugin {
             }
 
             googleSignInClient = GoogleSignIn.getClient(getContext(), builder.build());
+            googleProvider = new PlayServicesGoogleIdentityProvider(getContext(), googleSignInClient, this::launchGoogleSignInIntent,
+                    executor.lane(PluginExecutor.Lane.USER));
+            googleAuthService = new GoogleAuthService(googleProvider, executor);
+            googleAuthService.setSilentSignInTimeout(silentSignInTimeoutMs);
             Log.d(TAG, "GoogleSignInClient initialized successfully");
         } catch (Exception e) {
             Log.e(TAG, "Error initializing GoogleSignInClient", e);
@@ -138,8 +188,14 @@ public class SocialAuth extends Plugin {
                 call.reject("Client ID is required");
                 return;
             }
+            if (rejectInvalidAvatarCache(call)) {
+                return;
+            }
 
-            loadGoogleSignInClient(clientId, forceCodeForRefreshToken, scopeArray);
+            long silentSignInTimeoutMs = call.getLong("silentSignInTimeout", GoogleAuthService.DEFAULT_SILENT_SIGN_IN_TIMEOUT_MS);
+            loadGoogleSignInClient(clientId, forceCodeForRefreshToken, scopeArray, silentSignInTimeoutMs);
+            configureAvatarCache(call);
+            configureResumeRevalidation(call);
             call.resolve();
         } catch (Exception e) {
             Log.e(TAG, "Error in initializeGoogle", e);
@@ -161,74 +217,56 @@ public class SocialAuth extends Plugin {
 
     @PluginMethod
     public void signInWithGoogle(PluginCall call) {
-        if (googleSignInClient == null) {
+        if (googleAuthService == null) {
             call.reject("Google services are not ready. Please call initializeGoogle() first");
             return;
         }
 
-        GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(getContext());
-        if (account != null) {
-            Log.d(TAG, "User already signed in, using existing account");
-            resolveWithGoogleAccount(call, account);
+        googleAuthService.signIn(call, new ProviderCallback<GoogleSignInResult>() {
+            @Override
+            public void onSuccess(GoogleSignInResult result) {
+                Log.d(TAG, "Google signed in from " + result.getTier().getLabel() + " tier");
+                resolveWithGoogleAccount(call, result.getAccount(), result.getTier());
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                Log.e(TAG, "Google sign-in failed: " + error.getMessage(), error);
+                rejectWith(call, error);
+            }
+        });
+    }
+
+    private void launchGoogleSignInIntent(Intent signInIntent) {
+        // Only a call waiting on the picker may host it, a call still in the silent tier can complete first
+        GoogleAuthService service = googleAuthService;
+        PluginCall host = service != null ? (PluginCall) service.getInteractiveHost() : null;
+
+        if (host == null) {
+            Log.e(TAG, "launchGoogleSignInIntent: no pending sign-in call");
+            googleProvider.onSignInResult(null);
             return;
         }
 
-        Intent signInIntent = googleSignInClient.getSignInIntent();
-        saveCall(call);
-        startActivityForResult(call, signInIntent, "googleSignInResult");
+        saveCall(host);
+        startActivityForResult(host, signInIntent, "googleSignInResult");
     }
 
     @ActivityCallback
     private void googleSignInResult(PluginCall call, ActivityResult result) {
         if (call == null) {
             Log.e(TAG, "googleSignInResult: call is null");
-            return;
         }
 
-        if (result.getData() == null) {
-            call.reject("Sign-in failed: No data returned");
-            return;
-        }
-
-        try {
-            Task<GoogleSignInAccount> task = GoogleSignIn.getSignedInAccountFromIntent(result.getData());
-            GoogleSignInAccount account = task.getResult(ApiException.class);
-
-            if (account == null) {
-                call.reject("Sign-in failed: Account is null");
-                return;
-            }
-
-            resolveWithGoogleAccount(call, account);
-
-        } catch (ApiException e) {
-            Log.e(TAG, "Google sign-in failed with status code: " + e.getStatusCode(), e);
-
-            if (e.getStatusCode() == SIGN_IN_CANCELLED) {
-                call.reject("The user canceled the sign-in flow.", "USER_CANCELLED", e);
-            } else if (e.getStatusCode() == NETWORK_ERROR) {
-                call.reject("Network error occurred. Please check your connection.", "NETWORK_ERROR", e);
-            } else {
-                call.reject("Sign-in failed with code: " + e.getStatusCode(), String.valueOf(e.getStatusCode()), e);
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Unexpected error during Google sign-in", e);
-            call.reject("An unexpected error occurred", e);
-        }
+        // The provider completes every caller waiting on this flow, including this call
+        googleProvider.onSignInResult(result.getData());
     }
 
-    private void resolveWithGoogleAccount(PluginCall call, GoogleSignInAccount account) {
+    private void resolveWithGoogleAccount(PluginCall call, GoogleAccount account, SignInTier tier) {
         try {
             JSObject authentication = new JSObject();
             authentication.put("idToken", account.getIdToken());
-
-            Account gAccount = account.getAccount();
-            if (gAccount != null) {
-                authentication.put("accessToken", account.getIdToken());
-            } else {
-                authentication.put("accessToken", "");
-            }
-
+            authentication.put("accessToken", account.getEmail() != null ? account.getIdToken() : "");
             authentication.put("refreshToken", "");
 
             JSObject user = new JSObject();
@@ -241,7 +279,9 @@ public class SocialAuth extends Plugin {
             user.put("familyName", account.getFamilyName() != null ? account.getFamilyName() : "");
             user.put("givenName", account.getGivenName() != null ? account.getGivenName() : "");
             user.put("id", account.getId() != null ? account.getId() : "");
-            user.put("imageUrl", account.getPhotoUrl() != null ? account.getPhotoUrl().toString() : "");
+            user.put("imageUrl", account.getPhotoUrl() != null ? account.getPhotoUrl() : "");
+            user.put("signInTier", tier.getLabel());
+            attachCachedAvatar(user, user.getString("imageUrl"));
 
             call.resolve(user);
         } catch (Exception e) {
@@ -252,40 +292,76 @@ public class SocialAuth extends Plugin {
 
     @PluginMethod
     public void refreshGoogle(PluginCall call) {
-        GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(getContext());
-        if (account == null) {
-            call.reject("User not logged in.");
+        if (googleAuthService == null) {
+            // Play services restores the last session on its own, so it can be read before initializeGoogle()
+            GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(getContext());
+            if (account == null) {
+                call.reject("User not logged in.", ProviderException.NOT_SIGNED_IN);
+                return;
+            }
+            resolveWithGoogleAuthentication(call, account.getIdToken());
             return;
         }
 
-        try {
-            JSObject authentication = new JSObject();
-            authentication.put("idToken", account.getIdToken());
-            authentication.put("accessToken", account.getIdToken());
-            authentication.put("refreshToken", "");
-            call.resolve(authentication);
-        } catch (Exception e) {
-            Log.e(TAG, "Error refreshing Google token", e);
-            call.reject("Failed to refresh token", e);
-        }
+        googleAuthService.refresh(new ProviderCallback<GoogleAccount>() {
+            @Override
+            public void onSuccess(GoogleAccount account) {
+                resolveWithGoogleAuthentication(call, account.getIdToken());
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                Log.e(TAG, "Error refreshing Google token", error);
+                rejectWith(call, error);
+            }
+        });
+    }
+
+    private void resolveWithGoogleAuthentication(PluginCall call, String idToken) {
+        JSObject authentication = new JSObject();
+        authentication.put("idToken", idToken);
+        authentication.put("accessToken", idToken);
+        authentication.put("refreshToken", "");
+        call.resolve(authentication);
     }
 
     @PluginMethod
     public void signOutGoogle(PluginCall call) {
-        if (googleSignInClient == null) {
+        lastSessionCheck.clear();
+        if (googleAuthService == null) {
+            call.reject("Google services are not ready. Please call initializeGoogle() first");
+            return;
+        }
+
+        googleAuthService.signOut(new ProviderCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                Log.d(TAG, "Google sign out successful");
+                call.resolve();
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                Log.e(TAG, "Google sign out failed", error);
+                rejectWith(call, error);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void getGoogleSignInStats(PluginCall call) {
+        if (googleAuthService == null) {
             call.reject("Google services are not ready. Please call initializeGoogle() first");
             return;
         }
 
-        googleSignInClient.signOut()
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Google sign out successful");
-                    call.resolve();
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Google sign out failed", e);
-                    call.reject("Sign out failed", e);
-                });
+        JSObject stats = new JSObject();
+        for (SignInTier tier : SignInTier.values()) {
+            stats.put(tier.getLabel(), googleAuthService.getTierCount(tier));
+        }
+        stats.put("failed", googleAuthService.getFailedCount());
+        stats.put("coalesced", googleAuthService.getCoalescedCount());
+        call.resolve(stats);
     }
 
     // ============================================================================
@@ -301,10 +377,35 @@ public class SocialAuth extends Plugin {
             return;
         }
 
+        JSObject rateLimit = call.getObject("graphRateLimit");
+        double requestsPerSecond = GraphRequestLimiter.DEFAULT_REQUESTS_PER_SECOND;
+        int burst = GraphRequestLimiter.DEFAULT_BURST;
+        long maxWaitMs = GraphRequestLimiter.DEFAULT_MAX_WAIT_MS;
+        if (rateLimit != null) {
+            requestsPerSecond = rateLimit.optDouble("requestsPerSecond", requestsPerSecond);
+            burst = rateLimit.optInt("burst", burst);
+            maxWaitMs = rateLimit.optLong("maxWait", maxWaitMs);
+            try {
+                GraphRequestLimiter.checkRateLimit(requestsPerSecond, burst, maxWaitMs);
+            } catch (IllegalArgumentException e) {
+                call.reject("Invalid graphRateLimit: " + e.getMessage());
+                return;
+            }
+        }
+        if (rejectInvalidAvatarCache(call)) {
+            return;
+        }
+
         try {
             FacebookSdk.setApplicationId(appId);
             FacebookSdk.sdkInitialize(getContext());
-            facebookCallbackManager = CallbackManager.Factory.create();
+            FacebookAuthService service = facebookService();
+            if (rateLimit != null) {
+                service.getGraphLimiter().setRateLimit(requestsPerSecond, burst, maxWaitMs);
+            }
+
+            configureAvatarCache(call);
+            configureResumeRevalidation(call);
             call.resolve();
         } catch (Exception e) {
             Log.e(TAG, "Error initializing Facebook SDK", e);
@@ -312,9 +413,23 @@ public class SocialAuth extends Plugin {
         }
     }
 
+    /**
+     * Facebook service, created on first use when the SDK was already initialized from the
+     * manifest so sessions it restored keep working without initializeFacebook(). Null while the
+     * SDK is not initialized at all.
+     */
+    private synchronized FacebookAuthService facebookService() {
+        if (facebookAuthService == null && FacebookSdk.isInitialized()) {
+            facebookProvider = new FacebookSdkIdentityProvider(executor.lane(PluginExecutor.Lane.USER));
+            facebookAuthService = new FacebookAuthService(facebookProvider, executor);
+        }
+        return facebookAuthService;
+    }
+
     @PluginMethod
     public void signInWithFacebook(PluginCall call) {
-        if (facebookCallbackManager == null) {
+        FacebookAuthService facebook = facebookService();
+        if (facebook == null) {
             call.reject("Facebook SDK not initialized. Call initializeFacebook() first.");
             return;
         }
@@ -335,69 +450,107 @@ public class SocialAuth extends Plugin {
             permissions.add("email");
         }
 
-        facebookLoginManager.registerCallback(facebookCallbackManager, new FacebookCallback<LoginResult>() {
+        boolean pipelineProfile = call.getBoolean("pipelineProfile", false);
+        facebook.logIn(getActivity(), permissions, new ProviderCallback<FacebookToken>() {
             @Override
-            public void onSuccess(LoginResult result) {
-                AccessToken accessToken = result.getAccessToken();
-                JSObject response = new JSObject();
-                response.put("accessToken", createFacebookAccessTokenObject(accessToken));
+            public void onSuccess(FacebookToken accessToken) {
+                if (accessToken == null) {
+                    // Login was cancelled
+                    JSObject response = new JSObject();
+                    response.put("accessToken", null);
+                    call.resolve(response);
+                    return;
+                }
+
+                if (pipelineProfile) {
+                    // Let the app move on with the token, the profile follows as an event
+                    JSObject response = new JSObject();
+                    response.put("accessToken", createFacebookAccessTokenObject(accessToken));
+                    call.resolve(response);
+                    streamFacebookUserProfile(facebook, accessToken);
+                    return;
+                }
 
                 // Get user profile
-                getFacebookUserProfile(accessToken, call);
+                getFacebookUserProfile(facebook, accessToken, call);
             }
 
             @Override
-            public void onCancel() {
-                JSObject response = new JSObject();
-                response.put("accessToken", null);
-                call.resolve(response);
+            public void onError(ProviderException error) {
+                rejectWith(call, error);
             }
+        });
+    }
 
+    private void getFacebookUserProfile(FacebookAuthService facebook, FacebookToken accessToken, PluginCall call) {
+        List<String> fields = Arrays.asList("id", "name", "email", "picture", "first_name", "last_name");
+        facebook.getProfile(accessToken, fields, new ProviderCallback<JSONObject>() {
             @Override
-            public void onError(FacebookException error) {
-                call.reject("Facebook login failed: " + error.getMessage(), error);
+            public void onSuccess(JSONObject jsonObject) {
+                JSObject result = new JSObject();
+                result.put("accessToken", createFacebookAccessTokenObject(accessToken));
+                try {
+                    result.put("user", convertFacebookProfile(jsonObject));
+                } catch (Exception e) {
+                    Log.e(TAG, "Error parsing Facebook profile", e);
+                }
+                call.resolve(result);
             }
-        });
 
-        facebookLoginManager.logInWithReadPermissions(getActivity(), permissions);
-    }
-
-    private void getFacebookUserProfile(AccessToken accessToken, PluginCall call) {
-        GraphRequest request = GraphRequest.newMeRequest(accessToken, (jsonObject, response) -> {
-            if (response.getError() != null) {
-                Log.e(TAG, "Error fetching Facebook profile: " + response.getError().getErrorMessage());
+            @Override
+            public void onError(ProviderException error) {
+                Log.e(TAG, "Error fetching Facebook profile: " + error.getMessage());
                 // Return just the access token if profile fetch fails
                 JSObject result = new JSObject();
                 result.put("accessToken", createFacebookAccessTokenObject(accessToken));
                 call.resolve(result);
-            } else {
+            }
+        });
+    }
+
+    // Not retained: a retained profile would outlive sign-out and reach listeners added for a later session
+    private void streamFacebookUserProfile(FacebookAuthService facebook, FacebookToken accessToken) {
+        List<String> fields = Arrays.asList("id", "name", "email", "first_name", "last_name");
+        facebook.getProfileWithPicture(accessToken, fields, avatarSize, new ProviderCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject jsonObject) {
+                JSObject event = new JSObject();
+                event.put("userId", accessToken.getUserId());
                 try {
-                    JSObject user = convertFacebookProfile(jsonObject);
-                    JSObject result = new JSObject();
-                    result.put("accessToken", createFacebookAccessTokenObject(accessToken));
-                    result.put("user", user);
-                    call.resolve(result);
+                    event.put("user", convertFacebookProfile(jsonObject));
                 } catch (Exception e) {
                     Log.e(TAG, "Error parsing Facebook profile", e);
-                    JSObject result = new JSObject();
-                    result.put("accessToken", createFacebookAccessTokenObject(accessToken));
-                    call.resolve(result);
+                    event.put("error", "Failed to parse Facebook profile data");
                 }
+                notifyFacebookProfile(facebook, accessToken, event);
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                Log.e(TAG, "Error fetching Facebook profile: " + error.getMessage());
+                JSObject event = new JSObject();
+                event.put("userId", accessToken.getUserId());
+                event.put("error", error.getMessage());
+                event.put("code", error.getCode());
+                notifyFacebookProfile(facebook, accessToken, event);
             }
         });
+    }
 
-        android.os.Bundle parameters = new android.os.Bundle();
-        parameters.putString("fields", "id,name,email,picture,first_name,last_name");
-        request.setParameters(parameters);
-        request.executeAsync();
+    private void notifyFacebookProfile(FacebookAuthService facebook, FacebookToken accessToken, JSObject event) {
+        // Drop profiles that finish after the user signed out or switched accounts
+        FacebookToken current = facebook.getAccessToken();
+        if (current == null || !current.getUserId().equals(accessToken.getUserId())) {
+            return;
+        }
+        notifyListeners(FACEBOOK_PROFILE_EVENT, event);
     }
 
     @PluginMethod
     public void getFacebookProfile(PluginCall call) {
-        AccessToken accessToken = AccessToken.getCurrentAccessToken();
-
-        if (accessToken == null || accessToken.isExpired()) {
-            call.reject("No valid Facebook access token available");
+        FacebookAuthService facebook = facebookService();
+        if (facebook == null) {
+            call.reject("Facebook SDK not initialized. Call initializeFacebook() first.");
             return;
         }
 
@@ -416,10 +569,9 @@ public class SocialAuth extends Plugin {
             fields.addAll(Arrays.asList("id", "name", "email", "picture"));
         }
 
-        GraphRequest request = GraphRequest.newMeRequest(accessToken, (jsonObject, response) -> {
-            if (response.getError() != null) {
-                call.reject("Failed to get Facebook profile: " + response.getError().getErrorMessage());
-            } else {
+        facebook.getProfile(fields, new ProviderCallback<JSONObject>() {
+            @Override
+            public void onSuccess(JSONObject jsonObject) {
                 try {
                     JSObject user = convertFacebookProfile(jsonObject);
                     call.resolve(user);
@@ -427,40 +579,439 @@ public class SocialAuth extends Plugin {
                     call.reject("Failed to parse Facebook profile data", e);
                 }
             }
+
+            @Override
+            public void onError(ProviderException error) {
+                if (ProviderException.NOT_SIGNED_IN.equals(error.getCode())) {
+                    rejectWith(call, error);
+                } else {
+                    call.reject("Failed to get Facebook profile: " + error.getMessage(), error.getCode());
+                }
+            }
         });
+    }
 
-        android.os.Bundle parameters = new android.os.Bundle();
-        parameters.putString("fields", String.join(",", fields));
-        request.setParameters(parameters);
-        request.executeAsync();
+    @PluginMethod
+    public void openFacebookEdge(PluginCall call) {
+        FacebookAuthService facebook = facebookService();
+        if (facebook == null) {
+            call.reject("Facebook SDK not initialized. Call initializeFacebook() first.");
+            return;
+        }
+
+        String edge = call.getString("edge");
+        if (edge == null || edge.isEmpty()) {
+            call.reject("Edge is required");
+            return;
+        }
+
+        JSArray fieldsArray = call.getArray("fields");
+        List<String> fields = new ArrayList<>();
+        if (fieldsArray != null) {
+            for (int i = 0; i < fieldsArray.length(); i++) {
+                try {
+                    fields.add(fieldsArray.getString(i));
+                } catch (Exception e) {
+                    Log.e(TAG, "Error parsing field at index " + i, e);
+                }
+            }
+        }
+
+        try {
+            GraphEdgeCursor cursor = facebook.openEdge(edge, fields,
+                    call.getInt("pageSize", FacebookAuthService.DEFAULT_EDGE_PAGE_SIZE));
+            JSObject result = new JSObject();
+            result.put("cursor", cursor.getId());
+            call.resolve(result);
+        } catch (ProviderException e) {
+            rejectWith(call, e);
+        }
+    }
+
+    @PluginMethod
+    public void nextFacebookEdgePage(PluginCall call) {
+        String cursorId = call.getString("cursor");
+        FacebookAuthService facebook = facebookService();
+        GraphEdgeCursor cursor = facebook != null && cursorId != null ? facebook.getEdge(cursorId) : null;
+        if (cursor == null) {
+            call.reject("Cursor is closed, exhausted or was never opened", GraphEdgeCursor.CURSOR_NOT_FOUND);
+            return;
+        }
+
+        cursor.next(new ProviderCallback<GraphEdgeCursor.Page>() {
+            @Override
+            public void onSuccess(GraphEdgeCursor.Page page) {
+                JSObject result = new JSObject();
+                result.put("items", page.getItems());
+                result.put("done", page.isDone());
+                call.resolve(result);
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                rejectWith(call, error);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void closeFacebookEdge(PluginCall call) {
+        String cursorId = call.getString("cursor");
+        FacebookAuthService facebook = facebookService();
+        if (facebook != null && cursorId != null) {
+            facebook.closeEdge(cursorId);
+        }
+        call.resolve();
     }
 
     @PluginMethod
     public void getFacebookAccessToken(PluginCall call) {
-        AccessToken accessToken = AccessToken.getCurrentAccessToken();
+        FacebookAuthService facebook = facebookService();
+        if (facebook == null) {
+            call.reject("Facebook SDK not initialized. Call initializeFacebook() first.");
+            return;
+        }
 
-        if (accessToken != null && !accessToken.isExpired()) {
+        FacebookToken accessToken = facebook.getAccessToken();
+        if (accessToken != null) {
             call.resolve(createFacebookAccessTokenObject(accessToken));
         } else {
             call.resolve();
         }
     }
 
+    @PluginMethod
+    public void getFacebookGraphStats(PluginCall call) {
+        FacebookAuthService facebook = facebookService();
+        if (facebook == null) {
+            call.reject("Facebook SDK not initialized. Call initializeFacebook() first.");
+            return;
+        }
+
+        GraphRequestLimiter limiter = facebook.getGraphLimiter();
+        JSObject stats = new JSObject();
+        stats.put("requested", limiter.getRequestedCount());
+        stats.put("executed", limiter.getExecutedCount());
+        stats.put("coalesced", limiter.getCoalescedCount());
+        stats.put("throttled", limiter.getThrottledCount());
+        stats.put("rejected", limiter.getRejectedCount());
+        call.resolve(stats);
+    }
+
     @PluginMethod
     public void signOutFacebook(PluginCall call) {
-        facebookLoginManager.logOut();
+        lastSessionCheck.clear();
+        FacebookAuthService facebook = facebookService();
+        if (facebook != null) {
+            // Also closes the open edge cursors
+            facebook.logOut();
+        } else {
+            LoginManager.getInstance().logOut();
+        }
         call.resolve();
     }
 
+    // ============================================================================
+    // SIGN OUT ALL
+    // ============================================================================
+
+    @PluginMethod
+    public void signOutAll(PluginCall call) {
+        lastSessionCheck.clear();
+        long timeoutMs = call.getLong("timeout", DEFAULT_SIGN_OUT_ALL_TIMEOUT_MS);
+        ParallelSteps steps = new ParallelSteps(executor);
+
+        if (googleAuthService != null) {
+            // Revoking needs the signed-in account, so signing out has to wait for it
+            steps.add("googleRevokeAccess", googleAuthService::revokeAccess);
+            steps.addAfter("googleSignOut", "googleRevokeAccess", googleAuthService::signOut);
+        } else {
+            steps.skip("googleRevokeAccess").skip("googleSignOut");
+        }
+
+        // Grab the token before logOut() clears it so revocation can run in parallel
+        FacebookAuthService facebook = facebookService();
+        FacebookToken facebookToken = facebook != null ? facebook.getAccessToken() : null;
+        if (facebookToken != null) {
+            steps.add("facebookRevokePermissions", callback -> facebook.revokePermissions(facebookToken, callback));
+        } else {
+            steps.skip("facebookRevokePermissions");
+        }
+        if (facebook != null) {
+            steps.add("facebookLogOut", callback -> {
+                facebook.logOut();
+                callback.onSuccess(null);
+            });
+        } else {
+            steps.skip("facebookLogOut");
+        }
+
+        if (avatarCache != null) {
+            steps.add("clearAvatarCache", callback -> executor.execute(PluginExecutor.Lane.IO, () -> {
+                avatarCache.clear();
+                callback.onSuccess(null);
+            }));
+        } else {
+            steps.skip("clearAvatarCache");
+        }
+
+        try {
+            steps.run(timeoutMs, results -> resolveSignOutAll(call, results));
+        } catch (RejectedExecutionException e) {
+            call.reject(e.getMessage(), ProviderException.REJECTED);
+        }
+    }
+
+    private void resolveSignOutAll(PluginCall call, Map<String, ParallelSteps.StepResult> results) {
+        boolean success = true;
+        JSObject stepsResult = new JSObject();
+        for (Map.Entry<String, ParallelSteps.StepResult> entry : results.entrySet()) {
+            ParallelSteps.StepResult stepResult = entry.getValue();
+            JSObject step = new JSObject();
+            step.put("status", stepResult.getStatus().getLabel());
+            if (stepResult.getError() != null) {
+                step.put("error", stepResult.getError().getMessage());
+                step.put("code", stepResult.getError().getCode());
+            }
+            stepsResult.put(entry.getKey(), step);
+
+            ParallelSteps.Status status = stepResult.getStatus();
+            if (status == ParallelSteps.Status.FAILED || status == ParallelSteps.Status.TIMEOUT) {
+                Log.e(TAG, "signOutAll: " + entry.getKey() + " " + status.getLabel(), stepResult.getError());
+                success = false;
+            }
+        }
+
+        JSObject result = new JSObject();
+        result.put("success", success);
+        result.put("steps", stepsResult);
+        call.resolve(result);
+    }
+
+    // ============================================================================
+    // SESSION REVALIDATION
+    // ============================================================================
+
+    private void configureResumeRevalidation(PluginCall call) {
+        JSObject options = call.getObject("resumeRevalidation");
+        if (options == null && resumeRevalidation != null) {
+            // Keep what the other provider's initialize call configured
+            return;
+        }
+
+        boolean enabled = options != null && options.getBoolean("enabled", false);
+        long debounceMs = options != null ? options.optLong("debounce", DEFAULT_RESUME_DEBOUNCE_MS) : DEFAULT_RESUME_DEBOUNCE_MS;
+
+        if (resumeRevalidation != null) {
+            resumeRevalidation.cancel();
+        }
+        resumeRevalidation = enabled ? new DebouncedTask(executor, debounceMs, this::revalidateSessions) : null;
+    }
+
+    private void revalidateSessions(Runnable done) {
+        GoogleAuthService google = googleAuthService;
+        FacebookAuthService facebook = facebookService();
+        int checks = (google != null ? 1 : 0) + (facebook != null ? 1 : 0);
+        if (checks == 0) {
+            done.run();
+            return;
+        }
+
+        // Both providers are checked in parallel and reported together in one event
+        int token = lastSessionCheck.begin();
+        JSObject event = new JSObject();
+        AtomicInteger remaining = new AtomicInteger(checks);
+        Runnable publishIfDone = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                synchronized (event) {
+                    event.put("checkedAt", System.currentTimeMillis());
+                }
+                try {
+                    // A check that was running when the user signed out must not report the old session
+                    if (lastSessionCheck.record(token, event)) {
+                        notifyListeners(SESSION_REVALIDATED_EVENT, event);
+                    }
+                } finally {
+                    done.run();
+                }
+            }
+        };
+
+        if (google != null) {
+            google.revalidate(sessionCheckCallback("google", event, publishIfDone));
+        }
+        if (facebook != null) {
+            facebook.revalidate(sessionCheckCallback("facebook", event, publishIfDone));
+        }
+    }
+
+    @PluginMethod
+    public void getLastSessionCheck(PluginCall call) {
+        JSObject event = lastSessionCheck.get();
+        if (event != null) {
+            call.resolve(event);
+        } else {
+            call.resolve();
+        }
+    }
+
+    private ProviderCallback<SessionCheck> sessionCheckCallback(String provider, JSObject event, Runnable publishIfDone) {
+        return new ProviderCallback<SessionCheck>() {
+            @Override
+            public void onSuccess(SessionCheck check) {
+                JSObject result = new JSObject();
+                result.put("status", check.getStatus().getLabel());
+                if (check.getExpiresAt() > 0) {
+                    result.put("expiresAt", check.getExpiresAt());
+                }
+                report(result);
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                Log.w(TAG, "Session revalidation failed for " + provider + ": " + error.getMessage(), error);
+                JSObject result = new JSObject();
+                result.put("status", "failed");
+                result.put("error", error.getMessage());
+                result.put("code", error.getCode());
+                report(result);
+            }
+
+            private void report(JSObject result) {
+                synchronized (event) {
+                    event.put(provider, result);
+                }
+                publishIfDone.run();
+            }
+        };
+    }
+
+    // ============================================================================
+    // EXECUTOR
+    // ============================================================================
+
+    @PluginMethod
+    public void getExecutorStats(PluginCall call) {
+        JSObject stats = new JSObject();
+        for (PluginExecutor.Lane lane : PluginExecutor.Lane.values()) {
+            PluginExecutor.LaneStats laneStats = executor.getStats(lane);
+            JSObject laneResult = new JSObject();
+            laneResult.put("queued", laneStats.getQueued());
+            laneResult.put("maxQueued", laneStats.getMaxQueued());
+            laneResult.put("executed", laneStats.getExecuted());
+            laneResult.put("averageWaitMs", laneStats.getAverageWaitMs());
+            laneResult.put("maxWaitMs", laneStats.getMaxWaitMs());
+            laneResult.put("rejected", laneStats.getRejected());
+            stats.put(lane.getLabel(), laneResult);
+        }
+        call.resolve(stats);
+    }
+
+    // ============================================================================
+    // AVATAR CACHE
+    // ============================================================================
+
+    @PluginMethod
+    public void getCachedAvatar(PluginCall call) {
+        String url = call.getString("url");
+        if (url == null || url.isEmpty()) {
+            call.reject("Avatar url is required");
+            return;
+        }
+
+        int size = call.getInt("size", avatarSize);
+        try {
+            AvatarCache.checkRequest(url, size);
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+            return;
+        }
+
+        ensureAvatarCache().prefetch(url, size, new AvatarCache.Callback() {
+            @Override
+            public void onAvatarReady(File file) {
+                JSObject result = new JSObject();
+                result.put("url", localUrlFor(file));
+                result.put("path", file.getAbsolutePath());
+                call.resolve(result);
+            }
+
+            @Override
+            public void onAvatarFailed(Exception e) {
+                Log.e(TAG, "Failed to cache avatar", e);
+                call.reject("Failed to cache avatar: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // Checked before anything is configured so a bad option leaves the previous setup untouched
+    private boolean rejectInvalidAvatarCache(PluginCall call) {
+        JSObject avatarOptions = call.getObject("avatarCache");
+        if (avatarOptions == null) {
+            return false;
+        }
+        try {
+            AvatarCache.checkSize(avatarOptions.getInteger("size", DEFAULT_AVATAR_SIZE));
+            return false;
+        } catch (IllegalArgumentException e) {
+            call.reject("Invalid avatarCache: " + e.getMessage());
+            return true;
+        }
+    }
+
+    private void configureAvatarCache(PluginCall call) {
+        JSObject avatarOptions = call.getObject("avatarCache");
+        if (avatarOptions != null && avatarOptions.getBoolean("enabled", false)) {
+            avatarSize = avatarOptions.getInteger("size", DEFAULT_AVATAR_SIZE);
+            ensureAvatarCache();
+        }
+    }
+
+    private AvatarCache ensureAvatarCache() {
+        if (avatarCache == null) {
+            avatarCache = new AvatarCache(
+                    new File(getContext().getCacheDir(), "social-auth-avatars"),
+                    AVATAR_MEMORY_BYTES,
+                    AVATAR_DISK_BYTES,
+                    new BitmapAvatarResizer(),
+                    // Downloads block for up to the HTTP timeouts, so they get their own lane
+                    executor.lane(PluginExecutor.Lane.IO));
+        }
+        return avatarCache;
+    }
+
+    private void attachCachedAvatar(JSObject user, String imageUrl) {
+        if (avatarCache == null || imageUrl == null || imageUrl.isEmpty()) {
+            return;
+        }
+
+        File cached = avatarCache.getCached(imageUrl, avatarSize);
+        if (cached != null) {
+            user.put("imageLocalUrl", localUrlFor(cached));
+        } else {
+            // Warm the cache in the background so the next render can use the local copy
+            avatarCache.prefetch(imageUrl, avatarSize, null);
+        }
+    }
+
+    private String localUrlFor(File file) {
+        return getBridge().getLocalUrl() + Bridge.CAPACITOR_FILE_START + file.getAbsolutePath();
+    }
+
     @Override
     protected void handleOnActivityResult(int requestCode, int resultCode, Intent data) {
         super.handleOnActivityResult(requestCode, resultCode, data);
-        if (facebookCallbackManager != null) {
-            facebookCallbackManager.onActivityResult(requestCode, resultCode, data);
+        if (facebookProvider != null) {
+            facebookProvider.onActivityResult(requestCode, resultCode, data);
         }
     }
 
-    private JSObject createFacebookAccessTokenObject(AccessToken accessToken) {
+    private void rejectWith(PluginCall call, ProviderException error) {
+        Exception cause = error.getCause() instanceof Exception ? (Exception) error.getCause() : error;
+        call.reject(error.getMessage(), error.getCode(), cause);
+    }
+
+    private JSObject createFacebookAccessTokenObject(FacebookToken accessToken) {
         JSObject token = new JSObject();
         token.put("token", accessToken.getToken());
         token.put("userId", accessToken.getUserId());
@@ -483,6 +1034,7 @@ public class SocialAuth extends Plugin {
             if (picture.has("data")) {
                 JSONObject pictureData = picture.getJSONObject("data");
                 user.put("imageUrl", pictureData.optString("url"));
+                attachCachedAvatar(user, pictureData.optString("url"));
             }
         }
 
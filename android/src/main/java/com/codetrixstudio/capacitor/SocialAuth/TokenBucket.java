@@ -0,0 +1,46 @@
+package com.deldev.capacitor.SocialAuth;
+
+/**
+ * Reservation based token bucket. Callers always get a slot, together with how long they have to
+ * wait for it, so queued requests are released in order at the configured rate.
+ */
+public class TokenBucket {
+
+    private final int capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes one token and returns how many milliseconds the caller must wait before using it.
+     */
+    public synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-tokens / tokensPerNano / 1e6);
+    }
+
+    /**
+     * Returns a token taken by {@link #reserve()} that ended up not being used.
+     */
+    public synchronized void release() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,245 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import static org.junit.Assert.*;
+
+import com.deldev.capacitor.GoogleAuth.provider.FakeGoogleIdentityProvider;
+import com.deldev.capacitor.GoogleAuth.provider.FakeProvider;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+import com.deldev.capacitor.SocialAuth.FacebookAuthService;
+import com.deldev.capacitor.SocialAuth.FakeFacebookIdentityProvider;
+import com.deldev.capacitor.SocialAuth.GraphRequestLimiter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Drives thousands of concurrent calls through the auth services against the in-memory providers
+ * and reports throughput, tail latency and calls that never completed.
+ */
+public class AuthStressTest {
+
+  private static final int CALLS = 5000;
+  private static final int CALLER_THREADS = 32;
+  private static final long TIMEOUT_SECONDS = 60;
+
+  private final List<FakeProvider> providers = new ArrayList<>();
+
+  @After
+  public void tearDown() {
+    for (FakeProvider provider : providers) {
+      provider.shutdown();
+    }
+  }
+
+  @Test
+  public void googleMixedWorkload() throws Exception {
+    FakeGoogleIdentityProvider provider = track(new FakeGoogleIdentityProvider(42));
+    provider.setLatency(0, 3);
+    provider.setFailureRate(0.05);
+    provider.signInPreviously();
+    GoogleAuthService service = new GoogleAuthService(provider);
+
+    Report report = run("google mixed", (i, call) -> {
+      int kind = i % 10;
+      if (kind < 7) {
+        service.signIn(call.callback());
+      } else if (kind < 9) {
+        service.refresh(call.callback());
+      } else {
+        service.signOut(call.callback());
+      }
+    });
+
+    System.out.println(String.format(
+        Locale.US,
+        "[stress] google mixed: sign-in tiers memory=%d silent=%d interactive=%d failed=%d",
+        service.getTierCount(SignInTier.MEMORY),
+        service.getTierCount(SignInTier.SILENT),
+        service.getTierCount(SignInTier.INTERACTIVE),
+        service.getFailedCount()));
+    assertNoLeaks(report, service.getPendingCount());
+  }
+
+  @Test
+  public void googleColdStartSignInStorm() throws Exception {
+    FakeGoogleIdentityProvider provider = track(new FakeGoogleIdentityProvider(7));
+    provider.setLatency(1, 5);
+    GoogleAuthService service = new GoogleAuthService(provider);
+
+    Report report = run("google cold sign-in", (i, call) -> service.signIn(call.callback()));
+
+    System.out.println("[stress] google cold sign-in: account pickers opened=" + provider.getInteractiveSignIns()
+        + " coalesced=" + service.getCoalescedCount());
+    assertNoLeaks(report, service.getPendingCount());
+    assertEquals(0, report.failures.get());
+    assertEquals(1, provider.getMaxActiveInteractive());
+  }
+
+  @Test
+  public void facebookProfileStorm() throws Exception {
+    FakeFacebookIdentityProvider provider = track(new FakeFacebookIdentityProvider(99));
+    provider.setLatency(0, 3);
+    provider.setFailureRate(0.05);
+    provider.logInPreviously();
+    FacebookAuthService service = new FacebookAuthService(provider);
+    List<String> fields = Arrays.asList("id", "name", "email", "picture");
+
+    Report report = run("facebook profile", (i, call) -> service.getProfile(fields, call.callback()));
+
+    GraphRequestLimiter limiter = service.getGraphLimiter();
+    System.out.println(String.format(
+        Locale.US,
+        "[stress] facebook profile: graph executed=%d coalesced=%d throttled=%d rejected=%d",
+        limiter.getExecutedCount(),
+        limiter.getCoalescedCount(),
+        limiter.getThrottledCount(),
+        limiter.getRejectedCount()));
+    assertNoLeaks(report, service.getPendingCount());
+  }
+
+  @Test
+  public void facebookExpiredTokenStorm() throws Exception {
+    FakeFacebookIdentityProvider provider = track(new FakeFacebookIdentityProvider(5));
+    provider.setTokenLifetime(-1000);
+    provider.logInPreviously();
+    FacebookAuthService service = new FacebookAuthService(provider);
+    List<String> fields = Arrays.asList("id", "name");
+
+    Report report = run("facebook expired token", (i, call) -> service.getProfile(fields, call.callback()));
+
+    assertNoLeaks(report, service.getPendingCount());
+    assertEquals(CALLS, report.failures.get());
+    assertEquals(0, provider.getGraphRequests());
+  }
+
+  private <T extends FakeProvider> T track(T provider) {
+    providers.add(provider);
+    return provider;
+  }
+
+  private interface Operation {
+    void invoke(int index, Call call);
+  }
+
+  /**
+   * One simulated plugin call; records latency and how often it was completed.
+   */
+  private static class Call {
+
+    private final Report report;
+    private final int index;
+    private final CountDownLatch done;
+    private final long started = System.nanoTime();
+    private final AtomicInteger completions = new AtomicInteger();
+
+    Call(Report report, int index, CountDownLatch done) {
+      this.report = report;
+      this.index = index;
+      this.done = done;
+    }
+
+    <T> ProviderCallback<T> callback() {
+      return new ProviderCallback<T>() {
+        @Override
+        public void onSuccess(T result) {
+          finish(false);
+        }
+
+        @Override
+        public void onError(ProviderException error) {
+          finish(true);
+        }
+      };
+    }
+
+    private void finish(boolean failed) {
+      if (completions.incrementAndGet() > 1) {
+        report.duplicates.incrementAndGet();
+        return;
+      }
+      if (failed) {
+        report.failures.incrementAndGet();
+      }
+      report.latencies[index] = System.nanoTime() - started;
+      report.completed.incrementAndGet();
+      done.countDown();
+    }
+  }
+
+  private Report run(String name, Operation operation) throws InterruptedException {
+    Report report = new Report(name);
+    CountDownLatch done = new CountDownLatch(CALLS);
+    ExecutorService callers = Executors.newFixedThreadPool(CALLER_THREADS);
+
+    long started = System.nanoTime();
+    for (int i = 0; i < CALLS; i++) {
+      int index = i;
+      callers.execute(() -> operation.invoke(index, new Call(report, index, done)));
+    }
+
+    done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    report.elapsedNanos = System.nanoTime() - started;
+    callers.shutdownNow();
+
+    System.out.println(report);
+    return report;
+  }
+
+  private static void assertNoLeaks(Report report, int servicePending) {
+    assertEquals("calls never completed", CALLS, report.completed.get());
+    assertEquals("calls completed more than once", 0, report.duplicates.get());
+    assertEquals("service still tracks pending calls", 0, servicePending);
+  }
+
+  private static class Report {
+
+    final String name;
+    final long[] latencies = new long[CALLS];
+    final AtomicInteger completed = new AtomicInteger();
+    final AtomicInteger failures = new AtomicInteger();
+    final AtomicInteger duplicates = new AtomicInteger();
+    long elapsedNanos;
+
+    Report(String name) {
+      this.name = name;
+    }
+
+    private double percentileMs(long[] sorted, double percentile) {
+      int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+      long[] sorted = Arrays.copyOf(latencies, latencies.length);
+      Arrays.sort(sorted);
+      double seconds = elapsedNanos / 1e9;
+
+      return String.format(
+          Locale.US,
+          "[stress] %s: %d calls in %.2fs (%.0f calls/s) p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms failures=%d leaked=%d duplicates=%d",
+          name,
+          CALLS,
+          seconds,
+          completed.get() / seconds,
+          percentileMs(sorted, 50),
+          percentileMs(sorted, 99),
+          percentileMs(sorted, 99.9),
+          sorted[sorted.length - 1] / 1e6,
+          failures.get(),
+          CALLS - completed.get(),
+          duplicates.get());
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AvatarCacheTest {
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private File directory;
+  private final AtomicInteger requests = new AtomicInteger();
+
+  // Tags the payload with the requested size so tests can tell resized entries apart
+  private final AvatarCache.Resizer resizer = (source, size) -> {
+    byte[] out = new byte[source.length + 1];
+    out[0] = (byte) size;
+    System.arraycopy(source, 0, out, 1, source.length);
+    return out;
+  };
+
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/avatar", exchange -> {
+      requests.incrementAndGet();
+      byte[] body = new byte[1024];
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.createContext("/huge", exchange -> {
+      // Chunked, so the size is only known once the body is read
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(new byte[6 * 1024 * 1024]);
+      } catch (IOException e) {
+        // Client gave up on the body
+      }
+    });
+    server.createContext("/missing", exchange -> {
+      exchange.sendResponseHeaders(404, -1);
+      exchange.close();
+    });
+    server.start();
+
+    executor = Executors.newFixedThreadPool(4);
+    directory = Files.createTempDirectory("avatar-cache").toFile();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+    executor.shutdownNow();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void downloadsOnceAndServesFromCache() throws Exception {
+    AvatarCache cache = newCache(1024 * 1024, 1024 * 1024);
+    String url = url("/avatar");
+
+    assertNull(cache.getCached(url, 48));
+
+    File file = await(cache, url, 48);
+    assertTrue(file.exists());
+    assertEquals(48, readFile(file)[0]);
+    assertEquals(file, await(cache, url, 48));
+    assertEquals(file, cache.getCached(url, 48));
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void differentSizesAreCachedSeparately() throws Exception {
+    AvatarCache cache = newCache(1024 * 1024, 1024 * 1024);
+    String url = url("/avatar");
+
+    File small = await(cache, url, 48);
+    File large = await(cache, url, 96);
+
+    assertNotEquals(small, large);
+    assertEquals(96, readFile(large)[0]);
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void diskEntriesSurviveNewInstance() throws Exception {
+    String url = url("/avatar");
+    await(newCache(1024 * 1024, 1024 * 1024), url, 48);
+
+    AvatarCache reopened = newCache(1024 * 1024, 1024 * 1024);
+    assertNotNull(reopened.getCached(url, 48));
+    await(reopened, url, 48);
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void restoresDiskEntryFromMemory() throws Exception {
+    AvatarCache cache = newCache(1024 * 1024, 1024 * 1024);
+    String url = url("/avatar");
+
+    File file = await(cache, url, 48);
+    assertTrue(file.delete());
+
+    assertEquals(file, cache.getCached(url, 48));
+    assertTrue(file.exists());
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void evictsOldestFilesPastDiskLimit() throws Exception {
+    // Each entry is 1025 bytes, so only two fit
+    AvatarCache cache = newCache(0, 2100);
+
+    File first = await(cache, url("/avatar?id=1"), 48);
+    first.setLastModified(System.currentTimeMillis() - 60000);
+    await(cache, url("/avatar?id=2"), 48);
+    await(cache, url("/avatar?id=3"), 48);
+
+    assertFalse(first.exists());
+    assertNull(cache.getCached(url("/avatar?id=1"), 48));
+    assertNotNull(cache.getCached(url("/avatar?id=3"), 48));
+  }
+
+  @Test
+  public void mergesConcurrentRequests() throws Exception {
+    AvatarCache cache = newCache(1024 * 1024, 1024 * 1024);
+    String url = url("/avatar");
+    int callers = 20;
+    CountDownLatch done = new CountDownLatch(callers);
+    AtomicInteger ready = new AtomicInteger();
+
+    for (int i = 0; i < callers; i++) {
+      cache.prefetch(url, 48, new AvatarCache.Callback() {
+        @Override
+        public void onAvatarReady(File file) {
+          ready.incrementAndGet();
+          done.countDown();
+        }
+
+        @Override
+        public void onAvatarFailed(Exception e) {
+          done.countDown();
+        }
+      });
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(callers, ready.get());
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void reportsHttpErrors() throws Exception {
+    AvatarCache cache = newCache(1024 * 1024, 1024 * 1024);
+    CountDownLatch done = new CountDownLatch(1);
+    AtomicReference<Exception> error = new AtomicReference<>();
+
+    cache.prefetch(url("/missing"), 48, new AvatarCache.Callback() {
+      @Override
+      public void onAvatarReady(File file) {
+        done.countDown();
+      }
+
+      @Override
+      public void onAvatarFailed(Exception e) {
+        error.set(e);
+        done.countDown();
+      }
+    });
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertTrue(error.get() instanceof IOException);
+    assertNull(cache.getCached(url("/missing"), 48));
+  }
+
+  @Test
+  public void rejectsOversizedAvatars() throws Exception {
+    AvatarCache cache = newCache(1024 * 1024, 1024 * 1024);
+
+    try {
+      await(cache, url("/huge"), 48);
+      fail("Expected the download to be rejected");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("larger than"));
+    }
+    assertNull(cache.getCached(url("/huge"), 48));
+  }
+
+  @Test
+  public void rejectsUnusableRequestsUpFront() {
+    AvatarCache.checkRequest(url("/avatar"), 48);
+    AvatarCache.checkRequest("HTTPS://example.com/a.png", 1);
+
+    String[] badUrls = {"file:///data/avatar.png", "content://avatars/1", "ftp://example.com/a.png", "not a url", "http:///a.png"};
+    for (String url : badUrls) {
+      try {
+        AvatarCache.checkRequest(url, 48);
+        fail("Expected " + url + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage().startsWith("Avatar url"));
+      }
+    }
+
+    int[] badSizes = {0, -48};
+    for (int size : badSizes) {
+      try {
+        AvatarCache.checkRequest(url("/avatar"), size);
+        fail("Expected size " + size + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage().startsWith("Avatar size"));
+      }
+    }
+    assertEquals(0, requests.get());
+  }
+
+  @Test
+  public void clearRemovesEverything() throws Exception {
+    AvatarCache cache = newCache(1024 * 1024, 1024 * 1024);
+    String url = url("/avatar");
+
+    await(cache, url, 48);
+    cache.clear();
+
+    assertNull(cache.getCached(url, 48));
+  }
+
+  private AvatarCache newCache(long memoryBytes, long diskBytes) {
+    return new AvatarCache(directory, memoryBytes, diskBytes, resizer, executor);
+  }
+
+  private String url(String path) {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+  }
+
+  private File await(AvatarCache cache, String url, int size) throws Exception {
+    CountDownLatch done = new CountDownLatch(1);
+    AtomicReference<File> result = new AtomicReference<>();
+    AtomicReference<Exception> error = new AtomicReference<>();
+
+    cache.prefetch(url, size, new AvatarCache.Callback() {
+      @Override
+      public void onAvatarReady(File file) {
+        result.set(file);
+        done.countDown();
+      }
+
+      @Override
+      public void onAvatarFailed(Exception e) {
+        error.set(e);
+        done.countDown();
+      }
+    });
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    if (error.get() != null) {
+      throw error.get();
+    }
+    return result.get();
+  }
+
+  private static byte[] readFile(File file) throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      return AvatarCache.readFully(in, Integer.MAX_VALUE);
+    }
+  }
+}
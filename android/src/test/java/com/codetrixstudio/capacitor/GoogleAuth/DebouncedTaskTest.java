@@ -0,0 +1,80 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class DebouncedTaskTest {
+
+  @Test
+  public void burstOfTriggersRunsOnce() throws Exception {
+    AtomicInteger runs = new AtomicInteger();
+    DebouncedTask task = new DebouncedTask(50, done -> {
+      runs.incrementAndGet();
+      done.run();
+    });
+
+    for (int i = 0; i < 20; i++) {
+      task.trigger();
+    }
+    Thread.sleep(300);
+
+    assertEquals(1, runs.get());
+  }
+
+  @Test
+  public void triggersWhileRunningAreDropped() throws Exception {
+    AtomicReference<Runnable> finish = new AtomicReference<>();
+    CountDownLatch started = new CountDownLatch(1);
+    DebouncedTask task = new DebouncedTask(10, done -> {
+      finish.set(done);
+      started.countDown();
+    });
+
+    task.trigger();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    task.trigger();
+    Thread.sleep(100);
+    assertEquals(1, task.getRunCount());
+
+    // Once finished, the next trigger runs again
+    finish.get().run();
+    task.trigger();
+    Thread.sleep(100);
+    assertEquals(2, task.getRunCount());
+  }
+
+  @Test
+  public void cancelDropsPendingRun() throws Exception {
+    AtomicInteger runs = new AtomicInteger();
+    DebouncedTask task = new DebouncedTask(50, done -> {
+      runs.incrementAndGet();
+      done.run();
+    });
+
+    task.trigger();
+    task.cancel();
+    Thread.sleep(150);
+
+    assertEquals(0, runs.get());
+  }
+
+  @Test
+  public void failingTaskDoesNotBlockLaterRuns() throws Exception {
+    DebouncedTask task = new DebouncedTask(10, done -> {
+      throw new IllegalStateException("boom");
+    });
+
+    task.trigger();
+    Thread.sleep(100);
+    task.trigger();
+    Thread.sleep(100);
+
+    assertEquals(2, task.getRunCount());
+  }
+}
@@ -0,0 +1,344 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import static org.junit.Assert.*;
+
+import com.deldev.capacitor.GoogleAuth.provider.FakeGoogleIdentityProvider;
+import com.deldev.capacitor.GoogleAuth.provider.GoogleAccount;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GoogleAuthServiceTest {
+
+  private FakeGoogleIdentityProvider provider;
+  private GoogleAuthService service;
+
+  @Before
+  public void setUp() {
+    provider = new FakeGoogleIdentityProvider(1);
+    provider.setLatency(1, 2);
+    service = new GoogleAuthService(provider);
+  }
+
+  @After
+  public void tearDown() {
+    provider.shutdown();
+  }
+
+  @Test
+  public void freshCachedSessionIsServedFromMemory() throws Exception {
+    GoogleAccount previous = provider.signInPreviously();
+
+    GoogleSignInResult result = signIn().get();
+
+    assertEquals(SignInTier.MEMORY, result.getTier());
+    assertSame(previous, result.getAccount());
+    assertEquals(0, provider.getSilentSignIns());
+    assertEquals(0, provider.getInteractiveSignIns());
+  }
+
+  @Test
+  public void expiredSessionIsRefreshedSilently() throws Exception {
+    provider.setTokenLifetime(-1000);
+    provider.signInPreviously();
+    provider.setTokenLifetime(60 * 60 * 1000);
+
+    GoogleSignInResult result = signIn().get();
+
+    assertEquals(SignInTier.SILENT, result.getTier());
+    assertFalse(result.getAccount().isIdTokenExpired(System.currentTimeMillis(), 0));
+    assertEquals(0, provider.getInteractiveSignIns());
+
+    // The refreshed session now lives in memory
+    assertEquals(SignInTier.MEMORY, signIn().get().getTier());
+    assertEquals(1, provider.getSilentSignIns());
+  }
+
+  @Test
+  public void fallsBackToInteractiveWhenSilentSignInIsNotPossible() throws Exception {
+    GoogleSignInResult result = signIn().get();
+
+    assertEquals(SignInTier.INTERACTIVE, result.getTier());
+    assertEquals(1, provider.getSilentSignIns());
+    assertEquals(1, provider.getInteractiveSignIns());
+  }
+
+  @Test
+  public void fallsBackToInteractiveWhenSilentSignInTimesOut() throws Exception {
+    provider.setTokenLifetime(-1000);
+    provider.signInPreviously();
+    provider.setTokenLifetime(60 * 60 * 1000);
+    provider.setLatency(200, 200);
+    service.setSilentSignInTimeout(20);
+
+    GoogleSignInResult result = signIn().get();
+
+    assertEquals(SignInTier.INTERACTIVE, result.getTier());
+    assertEquals(1, service.getTierCount(SignInTier.INTERACTIVE));
+    assertEquals(0, service.getTierCount(SignInTier.SILENT));
+  }
+
+  @Test
+  public void concurrentCallersShareOneSilentSignIn() throws Exception {
+    provider.setTokenLifetime(-1000);
+    provider.signInPreviously();
+    provider.setTokenLifetime(60 * 60 * 1000);
+    provider.setLatency(50, 50);
+
+    Outcome[] outcomes = new Outcome[5];
+    for (int i = 0; i < outcomes.length; i++) {
+      outcomes[i] = new Outcome();
+      service.signIn(outcomes[i]);
+    }
+
+    for (Outcome outcome : outcomes) {
+      assertTrue(outcome.done.await(5, TimeUnit.SECONDS));
+      assertEquals(SignInTier.SILENT, outcome.get().getTier());
+      assertSame(outcomes[0].get().getAccount(), outcome.get().getAccount());
+    }
+    assertEquals(1, provider.getSilentSignIns());
+    assertEquals(0, provider.getInteractiveSignIns());
+    assertEquals(0, service.getPendingCount());
+  }
+
+  @Test
+  public void sessionRefreshedWhileWaitingSkipsThePicker() throws Exception {
+    provider.setTokenLifetime(-1000);
+    provider.signInPreviously();
+    provider.setTokenLifetime(60 * 60 * 1000);
+    service.setSilentSignInTimeout(100);
+
+    // The sign-in's own silent attempt answers long after its window closes
+    provider.setLatency(500, 500);
+    Outcome outcome = new Outcome();
+    service.signIn(outcome);
+
+    // Meanwhile a revalidation refreshes the session
+    provider.setLatency(10, 10);
+    assertEquals(SessionCheck.Status.REFRESHED, revalidate().getStatus());
+
+    assertTrue(outcome.done.await(5, TimeUnit.SECONDS));
+    assertEquals(SignInTier.SILENT, outcome.get().getTier());
+    assertEquals(0, provider.getInteractiveSignIns());
+  }
+
+  @Test
+  public void cancelledPickerIsReportedOnce() throws Exception {
+    provider.setCancelInteractive(true);
+
+    Outcome outcome = signIn();
+
+    assertEquals(ProviderException.USER_CANCELLED, outcome.error().getCode());
+    assertEquals(1, service.getFailedCount());
+    assertEquals(0, service.getPendingCount());
+  }
+
+  @Test
+  public void concurrentCallersShareOnePicker() throws Exception {
+    provider.setLatency(100, 100);
+    Outcome[] outcomes = new Outcome[5];
+    for (int i = 0; i < outcomes.length; i++) {
+      outcomes[i] = new Outcome();
+      service.signIn(outcomes[i]);
+    }
+
+    for (Outcome outcome : outcomes) {
+      assertTrue(outcome.done.await(5, TimeUnit.SECONDS));
+      assertEquals(SignInTier.INTERACTIVE, outcome.get().getTier());
+      assertSame(outcomes[0].get().getAccount(), outcome.get().getAccount());
+    }
+    assertEquals(1, provider.getInteractiveSignIns());
+    assertEquals(4, service.getCoalescedCount());
+    assertEquals(0, service.getPendingCount());
+  }
+
+  @Test
+  public void cancelledSharedPickerIsReportedToEveryCaller() throws Exception {
+    provider.setLatency(100, 100);
+    provider.setCancelInteractive(true);
+    Outcome first = new Outcome();
+    Outcome second = new Outcome();
+    service.signIn(first);
+    service.signIn(second);
+
+    assertTrue(first.done.await(5, TimeUnit.SECONDS));
+    assertTrue(second.done.await(5, TimeUnit.SECONDS));
+    assertEquals(ProviderException.USER_CANCELLED, first.error().getCode());
+    assertEquals(ProviderException.USER_CANCELLED, second.error().getCode());
+    assertEquals(1, provider.getInteractiveSignIns());
+    assertEquals(0, service.getPendingCount());
+
+    // The next attempt opens a new picker
+    provider.setCancelInteractive(false);
+    assertEquals(SignInTier.INTERACTIVE, signIn().get().getTier());
+    assertEquals(2, provider.getInteractiveSignIns());
+  }
+
+  @Test
+  public void pickerIsHostedByACallerWaitingOnIt() throws Exception {
+    provider.setLatency(50, 50);
+    AtomicReference<Object> host = new AtomicReference<>();
+    provider.setOnInteractiveSignIn(() -> host.set(service.getInteractiveHost()));
+
+    Outcome first = new Outcome();
+    service.signIn("first", first);
+    // Still in the silent tier, so it must not host anything yet
+    assertNull(service.getInteractiveHost());
+
+    assertTrue(first.done.await(5, TimeUnit.SECONDS));
+    assertEquals(SignInTier.INTERACTIVE, first.get().getTier());
+    assertEquals(1, provider.getInteractiveSignIns());
+    assertEquals("first", host.get());
+    assertNull(service.getInteractiveHost());
+  }
+
+  @Test
+  public void signOutDropsCachedSession() throws Exception {
+    provider.signInPreviously();
+    assertEquals(SignInTier.MEMORY, signIn().get().getTier());
+
+    CountDownLatch signedOut = new CountDownLatch(1);
+    service.signOut(new ProviderCallback<Void>() {
+      @Override
+      public void onSuccess(Void result) {
+        signedOut.countDown();
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        signedOut.countDown();
+      }
+    });
+    assertTrue(signedOut.await(5, TimeUnit.SECONDS));
+
+    assertEquals(SignInTier.INTERACTIVE, signIn().get().getTier());
+  }
+
+  @Test
+  public void revalidationSkipsFreshSession() throws Exception {
+    provider.signInPreviously();
+
+    SessionCheck check = revalidate();
+
+    assertEquals(SessionCheck.Status.FRESH, check.getStatus());
+    assertTrue(check.getExpiresAt() > System.currentTimeMillis());
+    assertEquals(0, provider.getSilentSignIns());
+  }
+
+  @Test
+  public void revalidationRefreshesSessionCloseToExpiry() throws Exception {
+    provider.setTokenLifetime(60 * 1000);
+    provider.signInPreviously();
+    provider.setTokenLifetime(60 * 60 * 1000);
+
+    SessionCheck check = revalidate();
+
+    assertEquals(SessionCheck.Status.REFRESHED, check.getStatus());
+    assertEquals(1, provider.getSilentSignIns());
+    // The refreshed session is handed out from memory afterwards
+    assertEquals(SignInTier.MEMORY, signIn().get().getTier());
+  }
+
+  @Test
+  public void revalidationNeverShowsThePicker() throws Exception {
+    provider.setTokenLifetime(-1000);
+    provider.signInPreviously();
+    provider.setSilentSignInAvailable(false);
+
+    assertEquals(SessionCheck.Status.SIGNED_OUT, revalidate().getStatus());
+    assertEquals(0, provider.getInteractiveSignIns());
+    assertEquals(0, service.getPendingCount());
+  }
+
+  @Test
+  public void revalidationTimesOutWhenSilentSignInStalls() throws Exception {
+    provider.setTokenLifetime(-1000);
+    provider.signInPreviously();
+    provider.setLatency(500, 500);
+    service.setSilentSignInTimeout(20);
+
+    CountDownLatch done = new CountDownLatch(1);
+    AtomicReference<ProviderException> error = new AtomicReference<>();
+    service.revalidate(new ProviderCallback<SessionCheck>() {
+      @Override
+      public void onSuccess(SessionCheck check) {
+        done.countDown();
+      }
+
+      @Override
+      public void onError(ProviderException e) {
+        error.set(e);
+        done.countDown();
+      }
+    });
+
+    assertTrue(done.await(250, TimeUnit.MILLISECONDS));
+    assertEquals(ProviderException.TIMEOUT, error.get().getCode());
+    assertEquals(0, service.getPendingCount());
+  }
+
+  private SessionCheck revalidate() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    AtomicReference<SessionCheck> result = new AtomicReference<>();
+    service.revalidate(new ProviderCallback<SessionCheck>() {
+      @Override
+      public void onSuccess(SessionCheck check) {
+        result.set(check);
+        done.countDown();
+      }
+
+      @Override
+      public void onError(ProviderException error) {
+        done.countDown();
+      }
+    });
+    assertTrue("revalidation never completed", done.await(5, TimeUnit.SECONDS));
+    assertNotNull("revalidation failed", result.get());
+    return result.get();
+  }
+
+  private Outcome signIn() throws InterruptedException {
+    Outcome outcome = new Outcome();
+    service.signIn(outcome);
+    assertTrue("sign-in never completed", outcome.done.await(5, TimeUnit.SECONDS));
+    return outcome;
+  }
+
+  private static class Outcome implements ProviderCallback<GoogleSignInResult> {
+
+    final CountDownLatch done = new CountDownLatch(1);
+    final AtomicReference<GoogleSignInResult> result = new AtomicReference<>();
+    final AtomicReference<ProviderException> error = new AtomicReference<>();
+
+    @Override
+    public void onSuccess(GoogleSignInResult value) {
+      result.set(value);
+      done.countDown();
+    }
+
+    @Override
+    public void onError(ProviderException value) {
+      error.set(value);
+      done.countDown();
+    }
+
+    GoogleSignInResult get() {
+      if (error.get() != null) {
+        throw new AssertionError("sign-in failed: " + error.get().getMessage(), error.get());
+      }
+      return result.get();
+    }
+
+    ProviderException error() {
+      assertNotNull("sign-in succeeded unexpectedly", error.get());
+      return error.get();
+    }
+  }
+}
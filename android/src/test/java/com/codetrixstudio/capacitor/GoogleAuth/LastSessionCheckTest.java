@@ -0,0 +1,41 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LastSessionCheckTest {
+
+  @Test
+  public void keepsTheLatestResult() {
+    LastSessionCheck<String> last = new LastSessionCheck<>();
+    assertNull(last.get());
+
+    assertTrue(last.record(last.begin(), "fresh"));
+    assertTrue(last.record(last.begin(), "refreshed"));
+
+    assertEquals("refreshed", last.get());
+  }
+
+  @Test
+  public void signOutForgetsTheResult() {
+    LastSessionCheck<String> last = new LastSessionCheck<>();
+    last.record(last.begin(), "fresh");
+
+    last.clear();
+
+    assertNull(last.get());
+  }
+
+  @Test
+  public void checkRunningDuringSignOutIsDropped() {
+    LastSessionCheck<String> last = new LastSessionCheck<>();
+    int token = last.begin();
+
+    last.clear();
+
+    assertFalse(last.record(token, "fresh"));
+    assertNull(last.get());
+    assertTrue(last.record(last.begin(), "signedOut"));
+  }
+}
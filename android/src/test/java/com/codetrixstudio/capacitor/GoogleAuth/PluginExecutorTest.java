@@ -0,0 +1,221 @@
+package com.deldev.capacitor.GoogleAuth;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PluginExecutorTest {
+
+  private PluginExecutor executor;
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  @Before
+  public void setUp() {
+    executor = new PluginExecutor("test");
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    executor.shutdown();
+  }
+
+  @Test
+  public void busyBackgroundLaneDoesNotDelayUserWork() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      executor.execute(PluginExecutor.Lane.BACKGROUND, this::block);
+    }
+
+    CountDownLatch ran = new CountDownLatch(1);
+    executor.execute(PluginExecutor.Lane.USER, ran::countDown);
+
+    assertTrue(ran.await(1, TimeUnit.SECONDS));
+    assertEquals(9, executor.getStats(PluginExecutor.Lane.BACKGROUND).getQueued());
+    assertEquals(9, executor.getStats(PluginExecutor.Lane.BACKGROUND).getMaxQueued());
+  }
+
+  @Test
+  public void reportsQueueWaitTime() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(PluginExecutor.Lane.BACKGROUND, () -> {
+      started.countDown();
+      block();
+    });
+    assertTrue(started.await(1, TimeUnit.SECONDS));
+
+    CountDownLatch ran = new CountDownLatch(1);
+    executor.execute(PluginExecutor.Lane.BACKGROUND, ran::countDown);
+    Thread.sleep(100);
+    release.countDown();
+    assertTrue(ran.await(1, TimeUnit.SECONDS));
+
+    PluginExecutor.LaneStats stats = executor.getStats(PluginExecutor.Lane.BACKGROUND);
+    assertEquals(2, stats.getExecuted());
+    assertTrue(stats.getMaxWaitMs() >= 90);
+    assertTrue(stats.getAverageWaitMs() >= 45);
+    assertEquals(0, stats.getQueued());
+  }
+
+  @Test
+  public void fullQueueRejectsInsteadOfRunningOnTheCaller() throws Exception {
+    // One thread plus a queue of 64 on the background lane
+    for (int i = 0; i < 65; i++) {
+      executor.execute(PluginExecutor.Lane.BACKGROUND, this::block);
+    }
+    Thread.sleep(50);
+
+    AtomicReference<Thread> ranOn = new AtomicReference<>();
+    try {
+      executor.execute(PluginExecutor.Lane.BACKGROUND, () -> ranOn.set(Thread.currentThread()));
+      fail("expected the full lane to reject");
+    } catch (RejectedExecutionException expected) {
+      // The caller fails its call instead
+    }
+
+    assertNull(ranOn.get());
+    assertEquals(1, executor.getStats(PluginExecutor.Lane.BACKGROUND).getRejected());
+  }
+
+  @Test
+  public void scheduledTaskWaitsForFullLaneInsteadOfRunningOnTheTimer() throws Exception {
+    for (int i = 0; i < 65; i++) {
+      executor.execute(PluginExecutor.Lane.BACKGROUND, this::block);
+    }
+
+    AtomicReference<String> threadName = new AtomicReference<>();
+    CountDownLatch ran = new CountDownLatch(1);
+    executor.schedule(PluginExecutor.Lane.BACKGROUND, () -> {
+      threadName.set(Thread.currentThread().getName());
+      ran.countDown();
+    }, 10);
+
+    assertFalse(ran.await(150, TimeUnit.MILLISECONDS));
+    release.countDown();
+    assertTrue(ran.await(1, TimeUnit.SECONDS));
+    assertTrue(threadName.get().startsWith("test-background-"));
+  }
+
+  @Test
+  public void cancellingStopsTaskWhoseHandOverIsBeingRetried() throws Exception {
+    for (int i = 0; i < 65; i++) {
+      executor.execute(PluginExecutor.Lane.BACKGROUND, this::block);
+    }
+
+    CountDownLatch ran = new CountDownLatch(1);
+    ScheduledFuture<?> future = executor.schedule(PluginExecutor.Lane.BACKGROUND, ran::countDown, 10);
+    Thread.sleep(100);
+
+    assertTrue(future.cancel(false));
+    assertTrue(future.isCancelled());
+    release.countDown();
+    assertFalse(ran.await(200, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void delayedTaskIsRejectedWhenLaneStaysFull() throws Exception {
+    executor.setHandoverAttempts(3);
+    for (int i = 0; i < 65; i++) {
+      executor.execute(PluginExecutor.Lane.BACKGROUND, this::block);
+    }
+
+    CountDownLatch ran = new CountDownLatch(1);
+    ScheduledFuture<?> future = executor.schedule(PluginExecutor.Lane.BACKGROUND, ran::countDown, 10);
+
+    try {
+      future.get(1, TimeUnit.SECONDS);
+      fail("expected the hand-over to give up");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+    assertEquals(1, executor.getStats(PluginExecutor.Lane.BACKGROUND).getRejected());
+    release.countDown();
+    assertFalse(ran.await(100, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void shutdownStopsThreadsOnceDelayedTasksWereHandedOver() throws Exception {
+    CountDownLatch ran = new CountDownLatch(1);
+    executor.schedule(PluginExecutor.Lane.USER, ran::countDown, 100);
+
+    executor.shutdown();
+
+    assertFalse(executor.isStopped());
+    assertTrue(ran.await(1, TimeUnit.SECONDS));
+    Thread.sleep(20);
+    assertTrue(executor.isStopped());
+  }
+
+  @Test
+  public void shutdownRejectsNewWorkButFinishesQueuedWork() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(PluginExecutor.Lane.USER, () -> {
+      started.countDown();
+      block();
+    });
+    assertTrue(started.await(1, TimeUnit.SECONDS));
+    CountDownLatch queued = new CountDownLatch(1);
+    executor.execute(PluginExecutor.Lane.USER, queued::countDown);
+    CountDownLatch scheduled = new CountDownLatch(1);
+    executor.schedule(PluginExecutor.Lane.USER, scheduled::countDown, 50);
+
+    executor.shutdown();
+
+    try {
+      executor.execute(PluginExecutor.Lane.USER, () -> { });
+      fail("expected execute to reject after shutdown");
+    } catch (RejectedExecutionException expected) {
+      // Nothing was queued
+    }
+    try {
+      executor.schedule(PluginExecutor.Lane.USER, () -> { }, 10);
+      fail("expected schedule to reject after shutdown");
+    } catch (RejectedExecutionException expected) {
+      // Nothing was scheduled
+    }
+    assertEquals(2, executor.getStats(PluginExecutor.Lane.USER).getRejected());
+    assertTrue(queued.await(1, TimeUnit.SECONDS));
+    assertTrue(scheduled.await(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void scheduledTasksRunOnTheirLane() throws Exception {
+    AtomicReference<String> threadName = new AtomicReference<>();
+    CountDownLatch ran = new CountDownLatch(1);
+    long start = System.currentTimeMillis();
+
+    executor.schedule(PluginExecutor.Lane.USER, () -> {
+      threadName.set(Thread.currentThread().getName());
+      ran.countDown();
+    }, 50);
+
+    assertTrue(ran.await(1, TimeUnit.SECONDS));
+    assertTrue(System.currentTimeMillis() - start >= 45);
+    assertTrue(threadName.get().startsWith("test-user-"));
+  }
+
+  @Test
+  public void cancelledScheduledTaskNeverRuns() throws Exception {
+    CountDownLatch ran = new CountDownLatch(1);
+
+    executor.schedule(PluginExecutor.Lane.USER, ran::countDown, 50).cancel(false);
+
+    assertFalse(ran.await(150, TimeUnit.MILLISECONDS));
+  }
+
+  private void block() {
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
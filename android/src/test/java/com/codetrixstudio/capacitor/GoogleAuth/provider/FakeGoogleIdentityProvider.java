@@ -0,0 +1,170 @@
+package com.deldev.capacitor.GoogleAuth.provider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deterministic in-memory {@link GoogleIdentityProvider}.
+ */
+public class FakeGoogleIdentityProvider extends FakeProvider implements GoogleIdentityProvider {
+
+  private final AtomicInteger accountCounter = new AtomicInteger();
+  private final AtomicInteger silentSignIns = new AtomicInteger();
+  private final AtomicInteger interactiveSignIns = new AtomicInteger();
+  private final AtomicInteger activeInteractive = new AtomicInteger();
+  private final AtomicInteger maxActiveInteractive = new AtomicInteger();
+  private final AtomicInteger signOuts = new AtomicInteger();
+  private final AtomicInteger revocations = new AtomicInteger();
+
+  private volatile GoogleAccount lastSignedIn;
+  private volatile long tokenLifetimeMs = 60 * 60 * 1000;
+  private volatile boolean silentSignInAvailable = true;
+  private volatile boolean cancelInteractive;
+  private volatile Runnable onInteractiveSignIn;
+
+  public FakeGoogleIdentityProvider(long seed) {
+    super(seed);
+  }
+
+  /**
+   * Lifetime of ID tokens issued from now on. Negative values issue already expired tokens.
+   */
+  public void setTokenLifetime(long tokenLifetimeMs) {
+    this.tokenLifetimeMs = tokenLifetimeMs;
+  }
+
+  /**
+   * Whether silent sign-in can succeed for a previously signed-in user.
+   */
+  public void setSilentSignInAvailable(boolean silentSignInAvailable) {
+    this.silentSignInAvailable = silentSignInAvailable;
+  }
+
+  /**
+   * Makes the account picker report that the user backed out.
+   */
+  public void setCancelInteractive(boolean cancelInteractive) {
+    this.cancelInteractive = cancelInteractive;
+  }
+
+  /**
+   * Runs {@code hook} on the calling thread whenever the account picker is opened, the way the
+   * plugin's activity launcher is called.
+   */
+  public void setOnInteractiveSignIn(Runnable hook) {
+    this.onInteractiveSignIn = hook;
+  }
+
+  /**
+   * Pretends a user signed in during a previous session.
+   */
+  public GoogleAccount signInPreviously() {
+    lastSignedIn = newAccount();
+    return lastSignedIn;
+  }
+
+  public int getSilentSignIns() {
+    return silentSignIns.get();
+  }
+
+  public int getInteractiveSignIns() {
+    return interactiveSignIns.get();
+  }
+
+  /**
+   * Highest number of account pickers that were open at the same time.
+   */
+  public int getMaxActiveInteractive() {
+    return maxActiveInteractive.get();
+  }
+
+  public int getSignOuts() {
+    return signOuts.get();
+  }
+
+  public int getRevocations() {
+    return revocations.get();
+  }
+
+  @Override
+  public GoogleAccount getLastSignedInAccount() {
+    return lastSignedIn;
+  }
+
+  @Override
+  public void silentSignIn(ProviderCallback<GoogleAccount> callback) {
+    silentSignIns.incrementAndGet();
+    later(() -> {
+      if (shouldFail()) {
+        callback.onError(networkError());
+      } else if (!silentSignInAvailable || lastSignedIn == null) {
+        callback.onError(new ProviderException("Sign in required", ProviderException.NOT_SIGNED_IN));
+      } else {
+        lastSignedIn = newAccount();
+        callback.onSuccess(lastSignedIn);
+      }
+    });
+  }
+
+  @Override
+  public void interactiveSignIn(ProviderCallback<GoogleAccount> callback) {
+    interactiveSignIns.incrementAndGet();
+    int active = activeInteractive.incrementAndGet();
+    maxActiveInteractive.accumulateAndGet(active, Math::max);
+    Runnable hook = onInteractiveSignIn;
+    if (hook != null) {
+      hook.run();
+    }
+
+    later(() -> {
+      activeInteractive.decrementAndGet();
+      if (shouldFail()) {
+        callback.onError(networkError());
+      } else if (cancelInteractive) {
+        callback.onError(new ProviderException("The user canceled the sign-in flow.", ProviderException.USER_CANCELLED));
+      } else {
+        lastSignedIn = newAccount();
+        callback.onSuccess(lastSignedIn);
+      }
+    });
+  }
+
+  @Override
+  public void signOut(ProviderCallback<Void> callback) {
+    signOuts.incrementAndGet();
+    later(() -> {
+      if (shouldFail()) {
+        callback.onError(networkError());
+      } else {
+        lastSignedIn = null;
+        callback.onSuccess(null);
+      }
+    });
+  }
+
+  @Override
+  public void revokeAccess(ProviderCallback<Void> callback) {
+    revocations.incrementAndGet();
+    later(() -> {
+      if (shouldFail()) {
+        callback.onError(networkError());
+      } else {
+        lastSignedIn = null;
+        callback.onSuccess(null);
+      }
+    });
+  }
+
+  private GoogleAccount newAccount() {
+    int n = accountCounter.incrementAndGet();
+    return new GoogleAccount.Builder()
+        .setId("google-user")
+        .setEmail("user@example.com")
+        .setDisplayName("Test User")
+        .setGivenName("Test")
+        .setFamilyName("User")
+        .setPhotoUrl("https://example.com/avatar.png")
+        .setIdToken("id-token-" + n)
+        .setIdTokenExpiresAt(System.currentTimeMillis() + tokenLifetimeMs)
+        .build();
+  }
+}
@@ -0,0 +1,82 @@
+package com.deldev.capacitor.GoogleAuth.provider;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared plumbing for the in-memory providers: seeded randomness so runs are reproducible,
+ * configurable latency and failure injection, and a scheduler that completes callbacks off the
+ * calling thread like the real SDKs do.
+ */
+public abstract class FakeProvider {
+
+  private final Random random;
+  private final ScheduledExecutorService scheduler;
+  private final AtomicInteger scheduled = new AtomicInteger();
+
+  private volatile long minLatencyMs;
+  private volatile long maxLatencyMs;
+  private volatile double failureRate;
+
+  protected FakeProvider(long seed) {
+    this.random = new Random(seed);
+    this.scheduler = Executors.newScheduledThreadPool(4, runnable -> {
+      Thread thread = new Thread(runnable, getClass().getSimpleName());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public void setLatency(long minLatencyMs, long maxLatencyMs) {
+    this.minLatencyMs = minLatencyMs;
+    this.maxLatencyMs = maxLatencyMs;
+  }
+
+  /**
+   * Fraction (0..1) of operations that fail with {@link ProviderException#NETWORK_ERROR}.
+   */
+  public void setFailureRate(double failureRate) {
+    this.failureRate = failureRate;
+  }
+
+  /**
+   * Number of operations that have been scheduled but not run yet.
+   */
+  public int getScheduledCount() {
+    return scheduled.get();
+  }
+
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  protected boolean shouldFail() {
+    synchronized (random) {
+      return random.nextDouble() < failureRate;
+    }
+  }
+
+  protected ProviderException networkError() {
+    return new ProviderException("Simulated network failure", ProviderException.NETWORK_ERROR);
+  }
+
+  /**
+   * Runs {@code task} on the scheduler after the configured latency.
+   */
+  protected void later(Runnable task) {
+    long delay;
+    synchronized (random) {
+      long spread = maxLatencyMs - minLatencyMs;
+      delay = minLatencyMs + (spread > 0 ? (long) (random.nextDouble() * (spread + 1)) : 0);
+    }
+
+    scheduled.incrementAndGet();
+    scheduler.schedule(() -> {
+      scheduled.decrementAndGet();
+      task.run();
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,183 @@
+package com.deldev.capacitor.SocialAuth;
+
+import static org.junit.Assert.*;
+
+import com.deldev.capacitor.GoogleAuth.SessionCheck;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FacebookAuthServiceTest {
+
+    private FakeFacebookIdentityProvider provider;
+    private FacebookAuthService service;
+
+    @Before
+    public void setUp() {
+        provider = new FakeFacebookIdentityProvider(11);
+        provider.setLatency(1, 2);
+        service = new FacebookAuthService(provider);
+    }
+
+    @After
+    public void tearDown() {
+        provider.shutdown();
+    }
+
+    @Test
+    public void revalidationSkipsFreshToken() throws Exception {
+        provider.setTokenLifetime(30L * 24 * 60 * 60 * 1000);
+        provider.logInPreviously();
+
+        assertEquals(SessionCheck.Status.FRESH, revalidate().getStatus());
+        assertEquals(0, provider.getRefreshes());
+        assertEquals(0, provider.getGraphRequests());
+    }
+
+    @Test
+    public void revalidationRefreshesTokenCloseToExpiry() throws Exception {
+        provider.setTokenLifetime(60 * 60 * 1000);
+        provider.logInPreviously();
+        provider.setTokenLifetime(60L * 24 * 60 * 60 * 1000);
+
+        SessionCheck check = revalidate();
+
+        assertEquals(SessionCheck.Status.REFRESHED, check.getStatus());
+        assertEquals(check.getExpiresAt(), service.getAccessToken().getExpires().getTime());
+        assertEquals(1, provider.getRefreshes());
+    }
+
+    @Test
+    public void revalidationReportsMissingSession() throws Exception {
+        assertEquals(SessionCheck.Status.SIGNED_OUT, revalidate().getStatus());
+        assertEquals(0, provider.getRefreshes());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    public void profileAndPictureAreFetchedInParallel() throws Exception {
+        provider.setLatency(200, 200);
+        FacebookToken token = provider.logInPreviously();
+        long start = System.currentTimeMillis();
+
+        JSONObject profile = profileWithPicture(token).get();
+
+        // Sequential requests would take at least 400ms
+        assertTrue(System.currentTimeMillis() - start < 380);
+        assertEquals("Test User", profile.getString("name"));
+        assertEquals("https://example.com/fb.png?size=96", profile.getJSONObject("picture").getJSONObject("data").getString("url"));
+        assertEquals(2, provider.getGraphRequests());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    public void coalescedProfileIsNotModifiedByPictureMerge() throws Exception {
+        provider.setLatency(100, 100);
+        FacebookToken token = provider.logInPreviously();
+        Outcome<JSONObject> plain = new Outcome<>();
+        service.getProfile(token, Arrays.asList("id", "name"), plain);
+
+        JSONObject withPicture = profileWithPicture(token).get();
+
+        assertTrue("profile never completed", plain.done.await(5, TimeUnit.SECONDS));
+        assertTrue(withPicture.has("picture"));
+        assertFalse(plain.get().has("picture"));
+    }
+
+    @Test
+    public void profileIsDeliveredWhenPictureFails() throws Exception {
+        FakeFacebookIdentityProvider failingPicture = new FakeFacebookIdentityProvider(11) {
+            @Override
+            protected JSONObject respond(FacebookToken token, String graphPath, Map<String, String> parameters) throws JSONException {
+                if ("me/picture".equals(graphPath)) {
+                    throw new JSONException("picture unavailable");
+                }
+                return super.respond(token, graphPath, parameters);
+            }
+        };
+        failingPicture.setLatency(1, 2);
+        service = new FacebookAuthService(failingPicture);
+        FacebookToken token = failingPicture.logInPreviously();
+
+        JSONObject profile = profileWithPicture(token).get();
+
+        assertEquals("Test User", profile.getString("name"));
+        assertFalse(profile.has("picture"));
+        failingPicture.shutdown();
+    }
+
+    @Test
+    public void profileFailureIsReported() throws Exception {
+        FacebookToken token = provider.logInPreviously();
+        provider.logOut();
+
+        Outcome<JSONObject> outcome = profileWithPicture(token);
+
+        assertEquals("190", outcome.error.get().getCode());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    private Outcome<JSONObject> profileWithPicture(FacebookToken token) throws InterruptedException {
+        Outcome<JSONObject> outcome = new Outcome<>();
+        service.getProfileWithPicture(token, Arrays.asList("id", "name", "picture"), 96, outcome);
+        assertTrue("profile never completed", outcome.done.await(5, TimeUnit.SECONDS));
+        return outcome;
+    }
+
+    private SessionCheck revalidate() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<SessionCheck> result = new AtomicReference<>();
+        service.revalidate(new ProviderCallback<SessionCheck>() {
+            @Override
+            public void onSuccess(SessionCheck check) {
+                result.set(check);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(ProviderException error) {
+                done.countDown();
+            }
+        });
+        assertTrue("revalidation never completed", done.await(5, TimeUnit.SECONDS));
+        assertNotNull("revalidation failed", result.get());
+        return result.get();
+    }
+
+    private static class Outcome<T> implements ProviderCallback<T> {
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<T> result = new AtomicReference<>();
+        final AtomicReference<ProviderException> error = new AtomicReference<>();
+
+        @Override
+        public void onSuccess(T value) {
+            result.set(value);
+            done.countDown();
+        }
+
+        @Override
+        public void onError(ProviderException value) {
+            error.set(value);
+            done.countDown();
+        }
+
+        T get() {
+            if (error.get() != null) {
+                throw new AssertionError("request failed: " + error.get().getMessage(), error.get());
+            }
+            return result.get();
+        }
+    }
+}
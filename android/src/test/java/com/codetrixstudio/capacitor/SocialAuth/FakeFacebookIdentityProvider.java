@@ -0,0 +1,233 @@
+package com.deldev.capacitor.SocialAuth;
+
+import android.app.Activity;
+
+import com.deldev.capacitor.GoogleAuth.provider.FakeProvider;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deterministic in-memory {@link FacebookIdentityProvider}.
+ */
+public class FakeFacebookIdentityProvider extends FakeProvider implements FacebookIdentityProvider {
+
+    private final AtomicInteger tokenCounter = new AtomicInteger();
+    private final AtomicInteger logIns = new AtomicInteger();
+    private final AtomicInteger graphRequests = new AtomicInteger();
+    private final AtomicInteger revocations = new AtomicInteger();
+    private final AtomicInteger refreshes = new AtomicInteger();
+
+    private volatile FacebookToken currentToken;
+    private volatile long tokenLifetimeMs = 60 * 60 * 1000;
+    private volatile boolean cancelLogIn;
+    private volatile int edgeSize = 100;
+
+    public FakeFacebookIdentityProvider(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Lifetime of access tokens issued from now on. Negative values issue already expired tokens.
+     */
+    public void setTokenLifetime(long tokenLifetimeMs) {
+        this.tokenLifetimeMs = tokenLifetimeMs;
+    }
+
+    public void setCancelLogIn(boolean cancelLogIn) {
+        this.cancelLogIn = cancelLogIn;
+    }
+
+    /**
+     * Number of items every edge (e.g. {@code me/friends}) returns across all its pages.
+     */
+    public void setEdgeSize(int edgeSize) {
+        this.edgeSize = edgeSize;
+    }
+
+    /**
+     * Pretends a user logged in during a previous session.
+     */
+    public FacebookToken logInPreviously() {
+        currentToken = newToken(Arrays.asList("public_profile", "email"));
+        return currentToken;
+    }
+
+    public int getLogIns() {
+        return logIns.get();
+    }
+
+    public int getGraphRequests() {
+        return graphRequests.get();
+    }
+
+    public int getRevocations() {
+        return revocations.get();
+    }
+
+    public int getRefreshes() {
+        return refreshes.get();
+    }
+
+    @Override
+    public FacebookToken getCurrentAccessToken() {
+        return currentToken;
+    }
+
+    @Override
+    public void logIn(Activity activity, List<String> permissions, ProviderCallback<FacebookToken> callback) {
+        logIns.incrementAndGet();
+        later(() -> {
+            if (shouldFail()) {
+                callback.onError(networkError());
+            } else if (cancelLogIn) {
+                callback.onSuccess(null);
+            } else {
+                currentToken = newToken(permissions);
+                callback.onSuccess(currentToken);
+            }
+        });
+    }
+
+    @Override
+    public void graphRequest(FacebookToken token, String graphPath, Map<String, String> parameters, ProviderCallback<JSONObject> callback) {
+        graphRequests.incrementAndGet();
+        later(() -> {
+            if (shouldFail()) {
+                callback.onError(networkError());
+                return;
+            }
+            if (token == null || token.isExpired() || token != currentToken) {
+                callback.onError(new ProviderException("Error validating access token", "190"));
+                return;
+            }
+
+            try {
+                callback.onSuccess(respond(token, graphPath, parameters));
+            } catch (JSONException e) {
+                callback.onError(new ProviderException(e.getMessage(), null, e));
+            }
+        });
+    }
+
+    @Override
+    public void refreshAccessToken(ProviderCallback<FacebookToken> callback) {
+        refreshes.incrementAndGet();
+        later(() -> {
+            FacebookToken token = currentToken;
+            if (shouldFail()) {
+                callback.onError(networkError());
+            } else if (token == null) {
+                callback.onError(new ProviderException("No access token to refresh", ProviderException.NOT_SIGNED_IN));
+            } else {
+                currentToken = newToken(new ArrayList<>(token.getPermissions()));
+                callback.onSuccess(currentToken);
+            }
+        });
+    }
+
+    @Override
+    public void revokePermissions(FacebookToken token, ProviderCallback<Void> callback) {
+        revocations.incrementAndGet();
+        later(() -> {
+            if (shouldFail()) {
+                callback.onError(networkError());
+            } else {
+                if (token == currentToken) {
+                    currentToken = null;
+                }
+                callback.onSuccess(null);
+            }
+        });
+    }
+
+    @Override
+    public void logOut() {
+        currentToken = null;
+    }
+
+    protected JSONObject respond(FacebookToken token, String graphPath, Map<String, String> parameters) throws JSONException {
+        if ("me/picture".equals(graphPath)) {
+            String size = parameters.get("width");
+            return new JSONObject().put("data", new JSONObject()
+                    .put("url", "https://example.com/fb.png?size=" + size)
+                    .put("is_silhouette", false));
+        }
+        if (graphPath.startsWith("me/")) {
+            return edgePage(graphPath, parameters);
+        }
+        if (!"me".equals(graphPath)) {
+            throw new JSONException("Unknown path " + graphPath);
+        }
+
+        JSONObject me = new JSONObject();
+        String fields = parameters.get("fields");
+        for (String field : (fields != null ? fields : "id,name").split(",")) {
+            switch (field) {
+                case "id":
+                    me.put("id", token.getUserId());
+                    break;
+                case "name":
+                    me.put("name", "Test User");
+                    break;
+                case "first_name":
+                    me.put("first_name", "Test");
+                    break;
+                case "last_name":
+                    me.put("last_name", "User");
+                    break;
+                case "email":
+                    me.put("email", "user@example.com");
+                    break;
+                case "picture":
+                    me.put("picture", new JSONObject().put("data", new JSONObject().put("url", "https://example.com/fb.png")));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return me;
+    }
+
+    /**
+     * Offset based page of a synthetic edge, with a Graph style {@code paging.next} link.
+     */
+    private JSONObject edgePage(String graphPath, Map<String, String> parameters) throws JSONException {
+        int limit = Integer.parseInt(parameters.getOrDefault("limit", "25"));
+        int offset = Integer.parseInt(parameters.getOrDefault("offset", "0"));
+        int end = Math.min(offset + limit, edgeSize);
+
+        JSONArray data = new JSONArray();
+        for (int i = offset; i < end; i++) {
+            data.put(new JSONObject().put("id", String.valueOf(i)).put("name", "Item " + i));
+        }
+
+        JSONObject page = new JSONObject().put("data", data);
+        if (end < edgeSize) {
+            String next = "https://graph.facebook.com/v18.0/" + graphPath + "?access_token=secret&limit=" + limit
+                    + "&offset=" + end + (parameters.containsKey("fields") ? "&fields=" + parameters.get("fields") : "");
+            page.put("paging", new JSONObject().put("next", next));
+        }
+        return page;
+    }
+
+    private FacebookToken newToken(List<String> permissions) {
+        return new FacebookToken(
+                "fb-token-" + tokenCounter.incrementAndGet(),
+                "fb-user",
+                new Date(System.currentTimeMillis() + tokenLifetimeMs),
+                new HashSet<>(permissions),
+                new HashSet<>());
+    }
+}
@@ -0,0 +1,198 @@
+package com.deldev.capacitor.SocialAuth;
+
+import static org.junit.Assert.*;
+
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphEdgeCursorTest {
+
+    private FakeFacebookIdentityProvider provider;
+    private FacebookAuthService service;
+
+    @Before
+    public void setUp() {
+        provider = new FakeFacebookIdentityProvider(5);
+        provider.setLatency(1, 2);
+        provider.logInPreviously();
+        service = new FacebookAuthService(provider);
+        service.getGraphLimiter().setRateLimit(1000, 1000, 10000);
+    }
+
+    @After
+    public void tearDown() {
+        provider.shutdown();
+    }
+
+    @Test
+    public void walksEveryPageInOrder() throws Exception {
+        provider.setEdgeSize(1000);
+        GraphEdgeCursor cursor = service.openEdge("friends", Arrays.asList("id", "name"), 100);
+
+        int expected = 0;
+        int pages = 0;
+        GraphEdgeCursor.Page page;
+        do {
+            page = next(cursor).get();
+            pages++;
+            for (int i = 0; i < page.getItems().length(); i++) {
+                assertEquals(String.valueOf(expected++), page.getItems().getJSONObject(i).getString("id"));
+            }
+        } while (!page.isDone());
+
+        assertEquals(1000, expected);
+        assertEquals(10, pages);
+        assertEquals(10, provider.getGraphRequests());
+        assertEquals(0, service.getOpenEdgeCount());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    public void fetchesOnlyWhatIsAskedFor() throws Exception {
+        provider.setEdgeSize(10000);
+        GraphEdgeCursor cursor = service.openEdge("likes", null, 50);
+        assertEquals(0, provider.getGraphRequests());
+
+        next(cursor).get();
+        next(cursor).get();
+        Thread.sleep(50);
+
+        assertEquals(2, provider.getGraphRequests());
+        assertEquals(1, service.getOpenEdgeCount());
+    }
+
+    @Test
+    public void overlappingRequestsAreRejected() throws Exception {
+        provider.setLatency(100, 100);
+        GraphEdgeCursor cursor = service.openEdge("photos", null, 10);
+
+        Outcome first = new Outcome();
+        cursor.next(first);
+        Outcome second = new Outcome();
+        cursor.next(second);
+
+        assertTrue(second.done.await(5, TimeUnit.SECONDS));
+        assertEquals(GraphEdgeCursor.CURSOR_BUSY, second.error.get().getCode());
+        assertTrue(first.done.await(5, TimeUnit.SECONDS));
+        assertEquals(10, first.get().getItems().length());
+    }
+
+    @Test
+    public void exhaustedCursorKeepsReportingDone() throws Exception {
+        provider.setEdgeSize(5);
+        GraphEdgeCursor cursor = service.openEdge("friends", null, 10);
+
+        assertTrue(next(cursor).get().isDone());
+        GraphEdgeCursor.Page after = next(cursor).get();
+
+        assertTrue(after.isDone());
+        assertEquals(0, after.getItems().length());
+        assertEquals(1, provider.getGraphRequests());
+    }
+
+    @Test
+    public void failedPageCanBeRetried() throws Exception {
+        GraphEdgeCursor cursor = service.openEdge("friends", null, 10);
+        provider.setFailureRate(1);
+        assertEquals(ProviderException.NETWORK_ERROR, next(cursor).error.get().getCode());
+
+        provider.setFailureRate(0);
+        assertEquals("0", next(cursor).get().getItems().getJSONObject(0).getString("id"));
+    }
+
+    @Test
+    public void oldestCursorsAreEvicted() throws Exception {
+        GraphEdgeCursor first = service.openEdge("friends", null, 10);
+        for (int i = 0; i < 20; i++) {
+            service.openEdge("friends", null, 10);
+        }
+
+        assertEquals(8, service.getOpenEdgeCount());
+        assertNull(service.getEdge(first.getId()));
+    }
+
+    @Test
+    public void logOutClosesOpenCursors() throws Exception {
+        provider.setLatency(100, 100);
+        GraphEdgeCursor idle = service.openEdge("friends", null, 10);
+        GraphEdgeCursor loading = service.openEdge("likes", null, 10);
+        Outcome inFlight = new Outcome();
+        loading.next(inFlight);
+
+        service.logOut();
+
+        assertEquals(0, service.getOpenEdgeCount());
+        assertNull(service.getEdge(idle.getId()));
+        assertEquals(GraphEdgeCursor.CURSOR_NOT_FOUND, next(idle).error.get().getCode());
+        assertTrue(inFlight.done.await(5, TimeUnit.SECONDS));
+        assertEquals(GraphEdgeCursor.CURSOR_NOT_FOUND, inFlight.error.get().getCode());
+    }
+
+    @Test
+    public void requiresAnAccessToken() {
+        provider.logOut();
+        try {
+            service.openEdge("friends", null, 10);
+            fail("expected NOT_SIGNED_IN");
+        } catch (ProviderException e) {
+            assertEquals(ProviderException.NOT_SIGNED_IN, e.getCode());
+        }
+    }
+
+    @Test
+    public void nextPageParametersDropTheAccessToken() throws Exception {
+        JSONObject response = new JSONObject().put("paging", new JSONObject()
+                .put("next", "https://graph.facebook.com/v18.0/me/friends?access_token=abc&limit=25&after=QVFI%3D%3D"));
+
+        Map<String, String> parameters = GraphEdgeCursor.nextPageParameters(response);
+
+        assertEquals(2, parameters.size());
+        assertEquals("25", parameters.get("limit"));
+        assertEquals("QVFI==", parameters.get("after"));
+        assertNull(GraphEdgeCursor.nextPageParameters(new JSONObject()));
+    }
+
+    private static Outcome next(GraphEdgeCursor cursor) throws InterruptedException {
+        Outcome outcome = new Outcome();
+        cursor.next(outcome);
+        assertTrue("page never arrived", outcome.done.await(5, TimeUnit.SECONDS));
+        return outcome;
+    }
+
+    private static class Outcome implements ProviderCallback<GraphEdgeCursor.Page> {
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<GraphEdgeCursor.Page> result = new AtomicReference<>();
+        final AtomicReference<ProviderException> error = new AtomicReference<>();
+
+        @Override
+        public void onSuccess(GraphEdgeCursor.Page value) {
+            result.set(value);
+            done.countDown();
+        }
+
+        @Override
+        public void onError(ProviderException value) {
+            error.set(value);
+            done.countDown();
+        }
+
+        GraphEdgeCursor.Page get() {
+            if (error.get() != null) {
+                throw new AssertionError("page failed: " + error.get().getMessage(), error.get());
+            }
+            return result.get();
+        }
+    }
+}
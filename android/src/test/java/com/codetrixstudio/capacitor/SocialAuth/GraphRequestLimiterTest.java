@@ -0,0 +1,198 @@
+package com.deldev.capacitor.SocialAuth;
+
+import static org.junit.Assert.*;
+
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphRequestLimiterTest {
+
+    private FakeFacebookIdentityProvider provider;
+    private GraphRequestLimiter limiter;
+    private FacebookToken token;
+
+    @Before
+    public void setUp() {
+        provider = new FakeFacebookIdentityProvider(3);
+        provider.setLatency(20, 20);
+        token = provider.logInPreviously();
+        limiter = new GraphRequestLimiter(provider);
+    }
+
+    @After
+    public void tearDown() {
+        provider.shutdown();
+    }
+
+    @Test
+    public void mergesIdenticalInFlightRequests() throws Exception {
+        Batch batch = new Batch(50);
+        for (int i = 0; i < 50; i++) {
+            limiter.request(token, "me", fields("id,name,email"), batch);
+        }
+
+        batch.await();
+        assertEquals(50, batch.successes.get());
+        assertEquals(1, provider.getGraphRequests());
+        assertEquals(49, limiter.getCoalescedCount());
+        assertEquals(1, limiter.getExecutedCount());
+    }
+
+    @Test
+    public void fieldOrderDoesNotPreventMerging() throws Exception {
+        Batch batch = new Batch(2);
+        limiter.request(token, "me", fields("id,name,email"), batch);
+        limiter.request(token, "me", fields("email, id,name"), batch);
+
+        batch.await();
+        assertEquals(1, provider.getGraphRequests());
+    }
+
+    @Test
+    public void differentFieldSetsAreNotMerged() throws Exception {
+        Batch batch = new Batch(2);
+        limiter.request(token, "me", fields("id,name"), batch);
+        limiter.request(token, "me", fields("id,email"), batch);
+
+        batch.await();
+        assertEquals(2, provider.getGraphRequests());
+        assertEquals(0, limiter.getCoalescedCount());
+    }
+
+    @Test
+    public void pacesRequestsBeyondTheBurst() throws Exception {
+        provider.setLatency(0, 0);
+        limiter.setRateLimit(50, 2, 10000);
+        Batch batch = new Batch(6);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            limiter.request(token, "me", fields("id,f" + i), batch);
+        }
+        batch.await();
+        long elapsedMs = (System.nanoTime() - started) / 1000000;
+
+        assertEquals(6, batch.successes.get());
+        assertEquals(4, limiter.getThrottledCount());
+        // Four requests past the burst at 50/s need at least 80ms
+        assertTrue("finished after " + elapsedMs + "ms", elapsedMs >= 70);
+    }
+
+    @Test
+    public void refusesInvalidRateLimits() {
+        double[][] invalid = {{0, 10, 1000}, {-1, 10, 1000}, {Double.NaN, 10, 1000}, {5, 0, 1000}, {5, 10, -1}};
+        for (double[] values : invalid) {
+            try {
+                limiter.setRateLimit(values[0], (int) values[1], (long) values[2]);
+                fail("Expected " + Arrays.toString(values) + " to be refused");
+            } catch (IllegalArgumentException expected) {
+                // Previous limit stays in place
+            }
+        }
+        limiter.setRateLimit(5, 1, 0);
+    }
+
+    @Test
+    public void rejectsRequestsThatWouldWaitTooLong() throws Exception {
+        limiter.setRateLimit(1, 1, 100);
+        Batch batch = new Batch(3);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.request(token, "me", fields("id,f" + i), batch);
+        }
+        batch.await();
+
+        assertEquals(1, batch.successes.get());
+        assertEquals(2, limiter.getRejectedCount());
+        assertEquals(GraphRequestLimiter.RATE_LIMITED, batch.lastErrorCode);
+        assertEquals(1, provider.getGraphRequests());
+    }
+
+    @Test
+    public void revocationsArePacedButNeverMerged() throws Exception {
+        limiter.setRateLimit(1, 1, 100);
+        CountDownLatch done = new CountDownLatch(3);
+        AtomicInteger rateLimited = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            limiter.revokePermissions(token, new ProviderCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(ProviderException error) {
+                    if (GraphRequestLimiter.RATE_LIMITED.equals(error.getCode())) {
+                        rateLimited.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, provider.getRevocations());
+        assertEquals(2, rateLimited.get());
+        assertEquals(3, limiter.getRequestedCount());
+        assertEquals(1, limiter.getExecutedCount());
+        assertEquals(0, limiter.getCoalescedCount());
+    }
+
+    @Test
+    public void sharesFailuresWithAllWaiters() throws Exception {
+        provider.setFailureRate(1);
+        Batch batch = new Batch(10);
+        for (int i = 0; i < 10; i++) {
+            limiter.request(token, "me", fields("id"), batch);
+        }
+
+        batch.await();
+        assertEquals(10, batch.failures.get());
+        assertEquals(1, provider.getGraphRequests());
+    }
+
+    private static Map<String, String> fields(String fields) {
+        return Collections.singletonMap("fields", fields);
+    }
+
+    private static class Batch implements ProviderCallback<JSONObject> {
+
+        final CountDownLatch done;
+        final AtomicInteger successes = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        volatile String lastErrorCode;
+
+        Batch(int size) {
+            done = new CountDownLatch(size);
+        }
+
+        @Override
+        public void onSuccess(JSONObject result) {
+            successes.incrementAndGet();
+            done.countDown();
+        }
+
+        @Override
+        public void onError(ProviderException error) {
+            failures.incrementAndGet();
+            lastErrorCode = error.getCode();
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("requests never completed", done.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
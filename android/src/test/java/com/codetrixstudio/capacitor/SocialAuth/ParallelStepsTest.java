@@ -0,0 +1,167 @@
+package com.deldev.capacitor.SocialAuth;
+
+import static org.junit.Assert.*;
+
+import com.deldev.capacitor.GoogleAuth.provider.FakeGoogleIdentityProvider;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderCallback;
+import com.deldev.capacitor.GoogleAuth.provider.ProviderException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelStepsTest {
+
+    private FakeGoogleIdentityProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = new FakeGoogleIdentityProvider(5);
+        provider.setLatency(100, 100);
+    }
+
+    @After
+    public void tearDown() {
+        provider.shutdown();
+    }
+
+    @Test
+    public void runsStepsInParallel() throws Exception {
+        provider.setLatency(300, 300);
+        provider.signInPreviously();
+        long start = System.currentTimeMillis();
+
+        Map<String, ParallelSteps.StepResult> results = run(new ParallelSteps()
+                .add("signOut", provider::signOut)
+                .add("revokeAccess", provider::revokeAccess), 5000);
+
+        // Two 300ms steps back to back would take at least 600ms
+        assertTrue(System.currentTimeMillis() - start < 550);
+        assertEquals(ParallelSteps.Status.OK, results.get("signOut").getStatus());
+        assertEquals(ParallelSteps.Status.OK, results.get("revokeAccess").getStatus());
+        assertEquals(1, provider.getSignOuts());
+        assertEquals(1, provider.getRevocations());
+    }
+
+    @Test
+    public void dependentStepWaitsForItsPrerequisite() throws Exception {
+        provider.signInPreviously();
+        AtomicInteger revocationsAtSignOut = new AtomicInteger(-1);
+
+        Map<String, ParallelSteps.StepResult> results = run(new ParallelSteps()
+                .add("revokeAccess", provider::revokeAccess)
+                .addAfter("signOut", "revokeAccess", callback -> {
+                    revocationsAtSignOut.set(provider.getRevocations());
+                    provider.signOut(callback);
+                }), 5000);
+
+        assertEquals(1, revocationsAtSignOut.get());
+        assertEquals(ParallelSteps.Status.OK, results.get("revokeAccess").getStatus());
+        assertEquals(ParallelSteps.Status.OK, results.get("signOut").getStatus());
+    }
+
+    @Test
+    public void dependentStepRunsAfterFailedOrLatePrerequisite() throws Exception {
+        CountDownLatch dependentRan = new CountDownLatch(2);
+        AtomicReference<ProviderCallback<Void>> late = new AtomicReference<>();
+
+        Map<String, ParallelSteps.StepResult> results = run(new ParallelSteps()
+                .add("failing", callback -> callback.onError(new ProviderException("boom", null)))
+                .addAfter("afterFailing", "failing", callback -> {
+                    dependentRan.countDown();
+                    callback.onSuccess(null);
+                })
+                .add("stuck", late::set)
+                .addAfter("afterStuck", "stuck", callback -> {
+                    dependentRan.countDown();
+                    callback.onSuccess(null);
+                }), 150);
+
+        assertEquals(ParallelSteps.Status.FAILED, results.get("failing").getStatus());
+        assertEquals(ParallelSteps.Status.OK, results.get("afterFailing").getStatus());
+        assertEquals(ParallelSteps.Status.TIMEOUT, results.get("stuck").getStatus());
+        assertEquals(ParallelSteps.Status.TIMEOUT, results.get("afterStuck").getStatus());
+
+        // Cleanup behind a step that finishes after the deadline still happens
+        late.get().onSuccess(null);
+        assertTrue(dependentRan.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void reportsEachStepSeparately() throws Exception {
+        Map<String, ParallelSteps.StepResult> results = run(new ParallelSteps()
+                .add("ok", callback -> callback.onSuccess(null))
+                .add("failed", callback -> callback.onError(new ProviderException("boom", ProviderException.NETWORK_ERROR)))
+                .add("thrown", callback -> {
+                    throw new IllegalStateException("not ready");
+                })
+                .skip("skipped"), 5000);
+
+        assertEquals(Arrays.asList("skipped", "ok", "failed", "thrown"), Arrays.asList(results.keySet().toArray()));
+        assertEquals(ParallelSteps.Status.SKIPPED, results.get("skipped").getStatus());
+        assertEquals(ParallelSteps.Status.OK, results.get("ok").getStatus());
+        assertEquals(ParallelSteps.Status.FAILED, results.get("failed").getStatus());
+        assertEquals(ProviderException.NETWORK_ERROR, results.get("failed").getError().getCode());
+        assertEquals(ParallelSteps.Status.FAILED, results.get("thrown").getStatus());
+        assertEquals("not ready", results.get("thrown").getError().getMessage());
+    }
+
+    @Test
+    public void timesOutStepsThatNeverFinish() throws Exception {
+        long start = System.currentTimeMillis();
+
+        Map<String, ParallelSteps.StepResult> results = run(new ParallelSteps()
+                .add("fast", callback -> callback.onSuccess(null))
+                .add("stuck", callback -> {
+                }), 150);
+
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(ParallelSteps.Status.OK, results.get("fast").getStatus());
+        assertEquals(ParallelSteps.Status.TIMEOUT, results.get("stuck").getStatus());
+    }
+
+    @Test
+    public void completesOnceWhenStepsFinishAfterTheDeadline() throws Exception {
+        AtomicInteger completions = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+
+        new ParallelSteps()
+                .add("slow", provider::signOut)
+                .run(20, results -> {
+                    completions.incrementAndGet();
+                    done.countDown();
+                });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // Let the late provider callback arrive
+        Thread.sleep(200);
+        assertEquals(1, completions.get());
+    }
+
+    @Test
+    public void completesImmediatelyWithNothingToRun() throws Exception {
+        Map<String, ParallelSteps.StepResult> results = run(new ParallelSteps().skip("only"), 5000);
+
+        assertEquals(1, results.size());
+        assertEquals(ParallelSteps.Status.SKIPPED, results.get("only").getStatus());
+    }
+
+    private static Map<String, ParallelSteps.StepResult> run(ParallelSteps steps, long timeoutMs) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Map<String, ParallelSteps.StepResult>> results = new AtomicReference<>();
+        steps.run(timeoutMs, value -> {
+            results.set(value);
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        return results.get();
+    }
+}
@@ -1,5 +1,7 @@
 /// <reference types="@capacitor/cli" />
 
+import type { PluginListenerHandle } from '@capacitor/core';
+
 declare module '@capacitor/cli' {
   export interface PluginsConfig {
     GoogleAuth: GoogleAuthPluginOptions;
@@ -42,6 +44,19 @@ export interface User {
    */
   imageUrl: string;
 
+  /**
+   * Local URL of the cached, resized profile picture.
+   * Only present on Android when the avatar cache is enabled and the picture has already been cached.
+   */
+  imageLocalUrl?: string;
+
+  /**
+   * Which sign-in tier produced this user (Android only).
+   * `memory` means a cached session with a fresh ID token, `silent` a background refresh
+   * without UI and `interactive` the account picker.
+   */
+  signInTier?: SignInTier;
+
   /**
    * The server authentication code.
    * Use this to exchange for tokens on your backend.
@@ -54,6 +69,85 @@ export interface User {
   authentication: Authentication;
 }
 
+export type SignInTier = 'memory' | 'silent' | 'interactive';
+
+export interface SignInStats {
+  /**
+   * Sign-ins served from a cached session.
+   */
+  memory: number;
+
+  /**
+   * Sign-ins served by a silent refresh.
+   */
+  silent: number;
+
+  /**
+   * Sign-ins that showed the account picker.
+   */
+  interactive: number;
+
+  /**
+   * Sign-ins that failed on every tier.
+   */
+  failed: number;
+
+  /**
+   * Sign-ins that joined an account picker already showing for the same plugin instead of opening another one.
+   */
+  coalesced: number;
+}
+
+export interface ExecutorLaneStats {
+  /**
+   * Tasks waiting for a thread right now.
+   */
+  queued: number;
+
+  /**
+   * Deepest the queue has been since the plugin was loaded.
+   */
+  maxQueued: number;
+
+  /**
+   * Tasks picked up by a lane thread.
+   */
+  executed: number;
+
+  /**
+   * Average time in milliseconds tasks waited in the queue.
+   */
+  averageWaitMs: number;
+
+  /**
+   * Longest time in milliseconds a task waited in the queue.
+   */
+  maxWaitMs: number;
+
+  /**
+   * Tasks refused because the queue was full or the plugin was shutting down. Calls that needed them reject with
+   * `REJECTED`.
+   */
+  rejected: number;
+}
+
+export interface ExecutorStats {
+  /**
+   * Work a pending call is waiting on, such as sign-in results and profile conversion.
+   */
+  user: ExecutorLaneStats;
+
+  /**
+   * Work nobody is waiting on, such as resume revalidation.
+   */
+  background: ExecutorLaneStats;
+
+  /**
+   * Blocking network and disk work, such as avatar downloads.
+   */
+  io: ExecutorLaneStats;
+}
+
 export interface Authentication {
   /**
    * The access token obtained during authentication.
@@ -148,6 +242,118 @@ export interface InitOptions {
    * @example "https://api.yourapp.com/auth"
    */
   backendUrl?: string;
+
+  /**
+   * Prefetch profile pictures into a local memory and disk cache (Android only).
+   */
+  avatarCache?: AvatarCacheOptions;
+
+  /**
+   * How long `signIn()` waits for a silent session refresh before showing the account picker, in milliseconds (Android only).
+   * @default 3000
+   */
+  silentSignInTimeout?: number;
+
+  /**
+   * Revalidate the session in the background when the app returns to the foreground (Android only). Set
+   * `enabled: true` to opt in. The outcome is published through the `sessionRevalidated` event.
+   */
+  resumeRevalidation?: ResumeRevalidationOptions;
+}
+
+export interface ResumeRevalidationOptions {
+  /**
+   * Whether sessions are revalidated on resume. Off unless enabled, since each check talks to Play services or the
+   * Graph API.
+   * @default false
+   */
+  enabled?: boolean;
+
+  /**
+   * Quiet period in milliseconds after the last resume before the check runs.
+   * @default 1000
+   */
+  debounce?: number;
+}
+
+/**
+ * `fresh` means the token was far enough from expiry that nothing was done.
+ */
+export type SessionCheckStatus = 'fresh' | 'refreshed' | 'signedOut' | 'failed';
+
+export interface SessionCheckResult {
+  status: SessionCheckStatus;
+
+  /**
+   * Token expiry in epoch milliseconds, when known.
+   */
+  expiresAt?: number;
+
+  /**
+   * Error message when the check failed.
+   */
+  error?: string;
+
+  /**
+   * Error code when the check failed.
+   */
+  code?: string;
+}
+
+export interface SessionRevalidatedEvent {
+  /**
+   * Present when Google is initialized. A refreshed session is returned from memory by the next sign-in or refresh call.
+   */
+  google?: SessionCheckResult;
+
+  /**
+   * Present when Facebook is initialized.
+   */
+  facebook?: SessionCheckResult;
+
+  /**
+   * When the check finished, in epoch milliseconds.
+   */
+  checkedAt: number;
+}
+
+export interface AvatarCacheOptions {
+  /**
+   * Enable background prefetching of profile pictures after sign-in.
+   * @default false
+   */
+  enabled?: boolean;
+
+  /**
+   * Maximum width/height in pixels of the cached pictures. Must be positive.
+   * @default 96
+   */
+  size?: number;
+}
+
+export interface CachedAvatarOptions {
+  /**
+   * Remote URL of the picture, usually `imageUrl` from the signed-in user. Only http(s) URLs are accepted.
+   */
+  url: string;
+
+  /**
+   * Maximum width/height in pixels, must be positive. Defaults to the size configured in `avatarCache`.
+   */
+  size?: number;
+}
+
+export interface CachedAvatar {
+  /**
+   * URL the WebView can load the cached picture from.
+   * On web this is the original remote URL.
+   */
+  url: string;
+
+  /**
+   * Absolute path of the cached file (empty on web).
+   */
+  path: string;
 }
 
 export interface GoogleAuthPlugin {
@@ -165,11 +371,16 @@ export interface GoogleAuthPlugin {
    * You should send this code to your backend to exchange for tokens.
    *
    * When `grantOfflineAccess` is false, you'll receive an `accessToken` directly.
+   *
+   * Calls made while a silent refresh or the account picker is in progress share it instead of starting another one.
+   * Only calls to this plugin are merged: `SocialAuth.signInWithGoogle()` runs its own flow.
    */
   signIn(): Promise<User>;
 
   /**
    * Refreshes the authentication token and returns a Promise that resolves with the updated authentication details.
+   * On Android this also works before `initialize()` using the session Play services restored, and rejects with
+   * `NOT_SIGNED_IN` when there is none.
    */
   refresh(): Promise<Authentication>;
 
@@ -177,6 +388,36 @@ export interface GoogleAuthPlugin {
    * Signs out the user and returns a Promise.
    */
   signOut(): Promise<any>;
+
+  /**
+   * Returns how many sign-ins were served by each tier since the plugin was initialized.
+   */
+  getSignInStats(): Promise<SignInStats>;
+
+  /**
+   * Returns queue depth and wait time for the plugin's background threads (Android only).
+   */
+  getExecutorStats(): Promise<ExecutorStats>;
+
+  /**
+   * Downloads (if needed) and resizes a profile picture, resolving with a local URL for it.
+   */
+  getCachedAvatar(options: CachedAvatarOptions): Promise<CachedAvatar>;
+
+  /**
+   * Returns the outcome of the most recent background session check, or null when none has run since the plugin was
+   * loaded or the user last signed out (Android only). Use this when the `sessionRevalidated` listener may be added
+   * after the check already fired.
+   */
+  getLastSessionCheck(): Promise<SessionRevalidatedEvent | null>;
+
+  /**
+   * Listens for the background session check that runs when the app resumes (Android only).
+   */
+  addListener(
+    eventName: 'sessionRevalidated',
+    listenerFunc: (event: SessionRevalidatedEvent) => void,
+  ): Promise<PluginListenerHandle>;
 }
 
 // ============================================================================
@@ -214,6 +455,12 @@ export interface FacebookUser {
    */
   imageUrl?: string;
 
+  /**
+   * Local URL of the cached, resized profile picture.
+   * Only present on Android when the avatar cache is enabled and the picture has already been cached.
+   */
+  imageLocalUrl?: string;
+
   /**
    * The authentication details including access token.
    * Note: When returned from signInWithFacebook, this contains the full token info.
@@ -254,6 +501,110 @@ export interface FacebookInitOptions {
    * Facebook App ID
    */
   appId: string;
+
+  /**
+   * Pacing of Graph API requests made by the plugin (Android only). `initializeFacebook()` rejects when
+   * `requestsPerSecond` or `burst` is not positive or `maxWait` is negative.
+   */
+  graphRateLimit?: GraphRateLimitOptions;
+
+  /**
+   * Prefetch profile pictures into a local memory and disk cache (Android only).
+   */
+  avatarCache?: AvatarCacheOptions;
+
+  /**
+   * Revalidate sessions in the background when the app returns to the foreground (Android only). Set
+   * `enabled: true` to opt in. The outcome is published through the `sessionRevalidated` event.
+   */
+  resumeRevalidation?: ResumeRevalidationOptions;
+}
+
+export interface GraphRateLimitOptions {
+  /**
+   * Sustained number of Graph requests per second.
+   * @default 5
+   */
+  requestsPerSecond?: number;
+
+  /**
+   * Number of requests that may be sent back to back before pacing kicks in.
+   * @default 10
+   */
+  burst?: number;
+
+  /**
+   * Longest time in milliseconds a request may wait for a slot before it is rejected with `RATE_LIMITED`.
+   * @default 10000
+   */
+  maxWait?: number;
+}
+
+export interface GraphRequestStats {
+  /**
+   * Graph requests made through the plugin.
+   */
+  requested: number;
+
+  /**
+   * Requests that were actually sent to the Graph API.
+   */
+  executed: number;
+
+  /**
+   * Requests answered by an identical request already in flight.
+   */
+  coalesced: number;
+
+  /**
+   * Requests that were delayed by the rate limiter.
+   */
+  throttled: number;
+
+  /**
+   * Requests rejected because they would have waited longer than `maxWait`.
+   */
+  rejected: number;
+}
+
+export interface SignOutAllOptions {
+  /**
+   * Longest time in milliseconds to wait for the sign-out steps. Steps still running then are reported as `timeout`.
+   * @default 10000
+   */
+  timeout?: number;
+}
+
+/**
+ * Outcome of one sign-out step. `skipped` means the step did not apply, e.g. the provider was never initialized.
+ */
+export type SignOutStepStatus = 'ok' | 'failed' | 'timeout' | 'skipped';
+
+export interface SignOutStepResult {
+  status: SignOutStepStatus;
+
+  /**
+   * Error message when the step failed.
+   */
+  error?: string;
+
+  /**
+   * Error code when the step failed.
+   */
+  code?: string;
+}
+
+export interface SignOutAllResult {
+  /**
+   * True when no step failed or timed out.
+   */
+  success: boolean;
+
+  /**
+   * Result of each step, keyed by `googleRevokeAccess`, `googleSignOut`, `facebookRevokePermissions`,
+   * `facebookLogOut` and `clearAvatarCache`.
+   */
+  steps: { [step: string]: SignOutStepResult };
 }
 
 export interface FacebookLoginOptions {
@@ -262,6 +613,73 @@ export interface FacebookLoginOptions {
    * @default ['public_profile', 'email']
    */
   permissions?: string[];
+
+  /**
+   * Resolve as soon as the access token is available instead of waiting for the profile. The profile and picture are
+   * then fetched in parallel and delivered through the `facebookProfile` event.
+   * @default false
+   */
+  pipelineProfile?: boolean;
+}
+
+export interface FacebookProfileEvent {
+  /**
+   * Facebook user the profile belongs to.
+   */
+  userId: string;
+
+  /**
+   * The profile, when it could be fetched.
+   */
+  user?: FacebookUser;
+
+  /**
+   * Error message when the profile could not be fetched.
+   */
+  error?: string;
+
+  /**
+   * Error code when the profile could not be fetched.
+   */
+  code?: string;
+}
+
+export interface FacebookEdgeOptions {
+  /**
+   * Edge of the current user to page through (e.g. `friends`, `likes`, `photos`), or a full path such as
+   * `12345/photos`.
+   */
+  edge: string;
+
+  /**
+   * Fields to request for each item.
+   */
+  fields?: string[];
+
+  /**
+   * Number of items per page.
+   * @default 25
+   */
+  pageSize?: number;
+}
+
+export interface FacebookEdgeCursor {
+  /**
+   * Opaque cursor to pass to `nextFacebookEdgePage()` and `closeFacebookEdge()`.
+   */
+  cursor: string;
+}
+
+export interface FacebookEdgePage {
+  /**
+   * Items of this page, as returned by the Graph API.
+   */
+  items: any[];
+
+  /**
+   * True when this was the last page. The cursor is closed automatically at that point.
+   */
+  done: boolean;
 }
 
 export interface FacebookLoginResponse {
@@ -271,7 +689,7 @@ export interface FacebookLoginResponse {
   accessToken: FacebookAuthentication | null;
 
   /**
-   * User profile information (if login successful)
+   * User profile information (if login successful). Not set when `pipelineProfile` is used.
    */
   user?: FacebookUser;
 }
@@ -312,11 +730,15 @@ export interface SocialAuthPlugin {
 
   /**
    * Sign in with Google
+   *
+   * Calls made while a silent refresh or the account picker is in progress share it instead of starting another one.
+   * Only calls to this plugin are merged: `GoogleAuth.signIn()` runs its own flow.
    */
   signInWithGoogle(): Promise<User>;
 
   /**
-   * Refresh Google authentication token
+   * Refresh Google authentication token. On Android this also works before `initializeGoogle()` using the session
+   * Play services restored, and rejects with `NOT_SIGNED_IN` when there is none.
    */
   refreshGoogle(): Promise<Authentication>;
 
@@ -325,6 +747,11 @@ export interface SocialAuthPlugin {
    */
   signOutGoogle(): Promise<void>;
 
+  /**
+   * Returns how many Google sign-ins were served by each tier since Google was initialized.
+   */
+  getGoogleSignInStats(): Promise<SignInStats>;
+
   // Facebook Auth Methods
   /**
    * Initializes Facebook authentication
@@ -339,18 +766,89 @@ export interface SocialAuthPlugin {
   signInWithFacebook(options?: FacebookLoginOptions): Promise<FacebookLoginResponse>;
 
   /**
-   * Get Facebook user profile
+   * Get Facebook user profile. On Android a session the SDK restored on its own can be used before
+   * `initializeFacebook()`; rejects when the Facebook SDK is not initialized at all.
    * @param options - Profile options including fields to fetch
    */
   getFacebookProfile(options?: FacebookProfileOptions): Promise<FacebookUser>;
 
   /**
-   * Get current Facebook access token
+   * Get current Facebook access token. Resolves empty when nobody is signed in and rejects when the Facebook SDK is
+   * not initialized.
    */
   getFacebookAccessToken(): Promise<FacebookAuthentication | null>;
 
   /**
-   * Sign out from Facebook
+   * Returns rate limiting and request coalescing counters for Graph API calls (Android only).
+   */
+  getFacebookGraphStats(): Promise<GraphRequestStats>;
+
+  /**
+   * Returns queue depth and wait time for the plugin's background threads (Android only).
+   */
+  getExecutorStats(): Promise<ExecutorStats>;
+
+  /**
+   * Opens a cursor over a Graph API edge. Nothing is fetched until `nextFacebookEdgePage()` is called, and each call
+   * fetches exactly one page, so large edges never have to be held in memory at once.
+   * @param options - Edge to page through
+   */
+  openFacebookEdge(options: FacebookEdgeOptions): Promise<FacebookEdgeCursor>;
+
+  /**
+   * Fetches the next page of an edge opened with `openFacebookEdge()`. Fails with `CURSOR_BUSY` while a previous page
+   * of the same cursor is still loading and with `CURSOR_NOT_FOUND` once the cursor was closed or drained. Signing out
+   * of Facebook closes every open cursor.
+   * @param options - Cursor to advance
+   */
+  nextFacebookEdgePage(options: FacebookEdgeCursor): Promise<FacebookEdgePage>;
+
+  /**
+   * Releases a cursor that is no longer needed before reaching the last page.
+   * @param options - Cursor to close
+   */
+  closeFacebookEdge(options: FacebookEdgeCursor): Promise<void>;
+
+  /**
+   * Sign out from Facebook. Rejects when the Facebook SDK is not initialized, since there is no session to clear.
    */
   signOutFacebook(): Promise<void>;
+
+  // Shared Methods
+  /**
+   * Signs out of Google and Facebook, revokes the app's access on both and clears native caches. Steps run in
+   * parallel, except that Google signs out only after its access was revoked, and the call resolves once they have
+   * finished or timed out, reporting the outcome of each step.
+   * @param options - Sign out options
+   */
+  signOutAll(options?: SignOutAllOptions): Promise<SignOutAllResult>;
+
+  /**
+   * Downloads (if needed) and resizes a profile picture, resolving with a local URL for it.
+   */
+  getCachedAvatar(options: CachedAvatarOptions): Promise<CachedAvatar>;
+
+  /**
+   * Returns the outcome of the most recent background session check, or null when none has run since the plugin was
+   * loaded or the user last signed out (Android only). Use this when the `sessionRevalidated` listener may be added
+   * after the check already fired.
+   */
+  getLastSessionCheck(): Promise<SessionRevalidatedEvent | null>;
+
+  /**
+   * Listens for the background session check that runs when the app resumes (Android only).
+   */
+  addListener(
+    eventName: 'sessionRevalidated',
+    listenerFunc: (event: SessionRevalidatedEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Receives the profile fetched after a `signInWithFacebook({ pipelineProfile: true })` call. The event is not kept for
+   * later listeners, so add the listener before signing in. It is dropped if the user signs out before it arrives.
+   */
+  addListener(
+    eventName: 'facebookProfile',
+    listenerFunc: (event: FacebookProfileEvent) => void,
+  ): Promise<PluginListenerHandle>;
 }
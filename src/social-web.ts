@@ -10,6 +10,19 @@ import {
   FacebookProfileOptions,
   FacebookUser,
   FacebookAuthentication,
+  FacebookProfileEvent,
+  CachedAvatar,
+  CachedAvatarOptions,
+  SignInStats,
+  GraphRequestStats,
+  ExecutorStats,
+  SessionRevalidatedEvent,
+  SignOutAllOptions,
+  SignOutAllResult,
+  SignOutStepResult,
+  FacebookEdgeOptions,
+  FacebookEdgeCursor,
+  FacebookEdgePage,
 } from './definitions';
 
 // Declare global types
@@ -27,8 +40,12 @@ export class SocialAuthWeb extends WebPlugin implements SocialAuthPlugin {
   private googleOptions: InitOptions & { backendUrl?: string };
   private currentGoogleUser: User | null = null;
   private googleInitialized: boolean = false;
+  private googleSignInStats: SignInStats = { memory: 0, silent: 0, interactive: 0, failed: 0, coalesced: 0 };
+  private pendingGoogleSignIn: Promise<User> | null = null;
 
   // Facebook properties
+  private facebookEdges = new Map<string, { path: string; params: { [key: string]: string }; busy: boolean }>();
+  private facebookEdgeCounter = 0;
   private facebookAppId: string = '';
   private facebookInitialized: boolean = false;
 
@@ -116,6 +133,27 @@ export class SocialAuthWeb extends WebPlugin implements SocialAuthPlugin {
       throw new Error('Google not initialized. Call initializeGoogle() first.');
     }
 
+    // Only one popup at a time, later callers share the result of the one already open
+    if (this.pendingGoogleSignIn) {
+      this.googleSignInStats.coalesced++;
+      return this.pendingGoogleSignIn;
+    }
+
+    // Web always goes through the Google Identity Services popup
+    this.pendingGoogleSignIn = this.signInWithGoogleInteractive();
+    try {
+      const user = await this.pendingGoogleSignIn;
+      this.googleSignInStats.interactive++;
+      return user;
+    } catch (error) {
+      this.googleSignInStats.failed++;
+      throw error;
+    } finally {
+      this.pendingGoogleSignIn = null;
+    }
+  }
+
+  private signInWithGoogleInteractive(): Promise<User> {
     return new Promise<User>(async (resolve, reject) => {
       try {
         const needsOfflineAccess = this.googleOptions.grantOfflineAccess ?? false;
@@ -259,26 +297,40 @@ export class SocialAuthWeb extends WebPlugin implements SocialAuthPlugin {
   }
 
   async signOutGoogle(): Promise<void> {
-    if (window.google && window.google.accounts && window.google.accounts.id) {
-      window.google.accounts.id.disableAutoSelect();
-    }
-
     if (this.currentGoogleUser && this.currentGoogleUser.authentication.accessToken) {
       try {
-        await fetch(`https://oauth2.googleapis.com/revoke?token=${this.currentGoogleUser.authentication.accessToken}`, {
-          method: 'POST',
-          headers: {
-            'Content-Type': 'application/x-www-form-urlencoded',
-          },
-        });
+        await this.revokeGoogleToken(this.currentGoogleUser.authentication.accessToken);
       } catch (error) {
         console.error('Error revoking Google token:', error);
       }
     }
 
+    this.clearGoogleSession();
+  }
+
+  private async revokeGoogleToken(accessToken: string): Promise<void> {
+    const response = await fetch(`https://oauth2.googleapis.com/revoke?token=${accessToken}`, {
+      method: 'POST',
+      headers: {
+        'Content-Type': 'application/x-www-form-urlencoded',
+      },
+    });
+    if (!response.ok) {
+      throw new Error(`Google token revocation failed with HTTP ${response.status}`);
+    }
+  }
+
+  private clearGoogleSession(): void {
+    if (window.google && window.google.accounts && window.google.accounts.id) {
+      window.google.accounts.id.disableAutoSelect();
+    }
     this.currentGoogleUser = null;
   }
 
+  async getGoogleSignInStats(): Promise<SignInStats> {
+    return { ...this.googleSignInStats };
+  }
+
   // ============================================================================
   // FACEBOOK AUTH IMPLEMENTATION
   // ============================================================================
@@ -358,6 +410,24 @@ export class SocialAuthWeb extends WebPlugin implements SocialAuthPlugin {
                 declinedPermissions: [],
               };
 
+              if (options.pipelineProfile) {
+                // Resolve with the token now and deliver the profile as an event
+                resolve({ accessToken });
+                this.getFacebookProfile({
+                  fields: ['id', 'name', 'email', 'picture', 'first_name', 'last_name'],
+                })
+                  .then((user) => {
+                    this.notifyFacebookProfile({ userId: accessToken.userId, user });
+                  })
+                  .catch((error: any) => {
+                    this.notifyFacebookProfile({
+                      userId: accessToken.userId,
+                      error: error?.message || 'Failed to get profile',
+                    });
+                  });
+                return;
+              }
+
               // Get user profile
               this.getFacebookProfile({
                 fields: ['id', 'name', 'email', 'picture', 'first_name', 'last_name'],
@@ -409,6 +479,14 @@ export class SocialAuthWeb extends WebPlugin implements SocialAuthPlugin {
     });
   }
 
+  private notifyFacebookProfile(event: FacebookProfileEvent): void {
+    // Drop profiles that finish after the user signed out or switched accounts
+    if (window.FB?.getAuthResponse()?.userID !== event.userId) {
+      return;
+    }
+    this.notifyListeners('facebookProfile', event);
+  }
+
   async getFacebookAccessToken(): Promise<FacebookAuthentication | null> {
     if (!this.facebookInitialized) {
       throw new Error('Facebook not initialized. Call initializeFacebook() first.');
@@ -432,15 +510,150 @@ export class SocialAuthWeb extends WebPlugin implements SocialAuthPlugin {
     });
   }
 
+  async getFacebookGraphStats(): Promise<GraphRequestStats> {
+    throw this.unimplemented('Graph request stats are only available on Android.');
+  }
+
+  async getExecutorStats(): Promise<ExecutorStats> {
+    throw this.unimplemented('Executor stats are only available on Android.');
+  }
+
+  async getLastSessionCheck(): Promise<SessionRevalidatedEvent | null> {
+    // Sessions are not revalidated on resume on web
+    return null;
+  }
+
+  async openFacebookEdge(options: FacebookEdgeOptions): Promise<FacebookEdgeCursor> {
+    if (!this.facebookInitialized) {
+      throw new Error('Facebook not initialized. Call initializeFacebook() first.');
+    }
+
+    const params: { [key: string]: string } = { limit: String(options.pageSize ?? 25) };
+    if (options.fields && options.fields.length > 0) {
+      params.fields = options.fields.join(',');
+    }
+
+    const cursor = `edge-${++this.facebookEdgeCounter}`;
+    const path = options.edge.includes('/') ? `/${options.edge}` : `/me/${options.edge}`;
+    this.facebookEdges.set(cursor, { path, params, busy: false });
+    return { cursor };
+  }
+
+  async nextFacebookEdgePage(options: FacebookEdgeCursor): Promise<FacebookEdgePage> {
+    const edge = this.facebookEdges.get(options.cursor);
+    if (!edge) {
+      throw this.cursorNotFound();
+    }
+    if (edge.busy) {
+      throw Object.assign(new Error('A page is already being fetched for this cursor'), { code: 'CURSOR_BUSY' });
+    }
+
+    edge.busy = true;
+    return new Promise((resolve, reject) => {
+      window.FB.api(edge.path, edge.params, (response: any) => {
+        edge.busy = false;
+        if (this.facebookEdges.get(options.cursor) !== edge) {
+          // Closed while the page was loading, e.g. by a sign-out
+          reject(this.cursorNotFound());
+          return;
+        }
+        if (!response || response.error) {
+          reject(new Error(response?.error?.message || 'Failed to get edge page'));
+          return;
+        }
+
+        const items: any[] = response.data || [];
+        const next: string | undefined = response.paging?.next;
+        if (items.length === 0 || !next) {
+          this.facebookEdges.delete(options.cursor);
+          resolve({ items, done: true });
+          return;
+        }
+
+        // Follow the paging link, leaving the access token to the SDK
+        const params: { [key: string]: string } = {};
+        new URL(next).searchParams.forEach((value, key) => {
+          if (key !== 'access_token') {
+            params[key] = value;
+          }
+        });
+        edge.params = params;
+        resolve({ items, done: false });
+      });
+    });
+  }
+
+  async closeFacebookEdge(options: FacebookEdgeCursor): Promise<void> {
+    this.facebookEdges.delete(options.cursor);
+  }
+
+  private cursorNotFound(): Error {
+    return Object.assign(new Error('Cursor is closed, exhausted or was never opened'), { code: 'CURSOR_NOT_FOUND' });
+  }
+
   async signOutFacebook(): Promise<void> {
     if (!this.facebookInitialized) {
       throw new Error('Facebook not initialized. Call initializeFacebook() first.');
     }
 
+    // Pages of the previous user must not be fetched after sign-out
+    this.facebookEdges.clear();
     return new Promise((resolve) => {
       window.FB.logout(() => {
         resolve();
       });
     });
   }
+
+  // ============================================================================
+  // SHARED
+  // ============================================================================
+
+  async signOutAll(options: SignOutAllOptions = {}): Promise<SignOutAllResult> {
+    // Steps share one deadline, including those that wait for another step
+    const deadline = Date.now() + (options.timeout ?? 10000);
+    const skipped: SignOutStepResult = { status: 'skipped' };
+    const runStep = (step: () => Promise<void>): Promise<SignOutStepResult> => {
+      const timer = new Promise<SignOutStepResult>((resolve) =>
+        setTimeout(() => resolve({ status: 'timeout' }), Math.max(0, deadline - Date.now())),
+      );
+      const outcome = step().then(
+        (): SignOutStepResult => ({ status: 'ok' }),
+        (error: any): SignOutStepResult => ({ status: 'failed', error: error?.message || String(error) }),
+      );
+      return Promise.race([outcome, timer]);
+    };
+
+    // Revoking needs the token that signing out drops, so Google runs its steps in order
+    const signOutGoogle = async (): Promise<[SignOutStepResult, SignOutStepResult]> => {
+      if (!this.googleInitialized) {
+        return [skipped, skipped];
+      }
+      const accessToken = this.currentGoogleUser?.authentication.accessToken;
+      const revoke = accessToken ? await runStep(() => this.revokeGoogleToken(accessToken)) : skipped;
+      const signOut = await runStep(async () => this.clearGoogleSession());
+      return [revoke, signOut];
+    };
+
+    // There is no native avatar cache to clear on web
+    const [[googleRevokeAccess, googleSignOut], facebookLogOut] = await Promise.all([
+      signOutGoogle(),
+      this.facebookInitialized ? runStep(() => this.signOutFacebook()) : Promise.resolve(skipped),
+    ]);
+
+    const steps: { [step: string]: SignOutStepResult } = {
+      googleRevokeAccess,
+      googleSignOut,
+      facebookRevokePermissions: skipped,
+      facebookLogOut,
+      clearAvatarCache: skipped,
+    };
+    const success = Object.keys(steps).every((key) => steps[key].status === 'ok' || steps[key].status === 'skipped');
+    return { success, steps };
+  }
+
+  async getCachedAvatar(options: CachedAvatarOptions): Promise<CachedAvatar> {
+    // The browser HTTP cache already handles this on web
+    return { url: options.url, path: '' };
+  }
 }
@@ -1,5 +1,14 @@
 import { WebPlugin } from '@capacitor/core';
-import { GoogleAuthPlugin, InitOptions, User } from './definitions';
+import {
+  CachedAvatar,
+  CachedAvatarOptions,
+  ExecutorStats,
+  GoogleAuthPlugin,
+  InitOptions,
+  SessionRevalidatedEvent,
+  SignInStats,
+  User,
+} from './definitions';
 
 // Declare Google Identity Services types
 declare global {
@@ -12,6 +21,8 @@ export class GoogleAuthWeb extends WebPlugin implements GoogleAuthPlugin {
   private tokenClient: any;
   private options: InitOptions & { backendUrl?: string };
   private currentUser: User | null = null;
+  private signInStats: SignInStats = { memory: 0, silent: 0, interactive: 0, failed: 0, coalesced: 0 };
+  private pendingSignIn: Promise<User> | null = null;
 
   constructor() {
     super();
@@ -94,6 +105,27 @@ export class GoogleAuthWeb extends WebPlugin implements GoogleAuthPlugin {
   }
 
   async signIn(): Promise<User> {
+    // Only one popup at a time, later callers share the result of the one already open
+    if (this.pendingSignIn) {
+      this.signInStats.coalesced++;
+      return this.pendingSignIn;
+    }
+
+    // Web always goes through the Google Identity Services popup
+    this.pendingSignIn = this.signInInteractive();
+    try {
+      const user = await this.pendingSignIn;
+      this.signInStats.interactive++;
+      return user;
+    } catch (error) {
+      this.signInStats.failed++;
+      throw error;
+    } finally {
+      this.pendingSignIn = null;
+    }
+  }
+
+  private signInInteractive(): Promise<User> {
     return new Promise<User>(async (resolve, reject) => {
       try {
         if (!window.google || !window.google.accounts) {
@@ -277,4 +309,22 @@ export class GoogleAuthWeb extends WebPlugin implements GoogleAuthPlugin {
     this.notifyListeners('userChange', null);
     return Promise.resolve();
   }
+
+  async getSignInStats(): Promise<SignInStats> {
+    return { ...this.signInStats };
+  }
+
+  async getExecutorStats(): Promise<ExecutorStats> {
+    throw this.unimplemented('Executor stats are only available on Android.');
+  }
+
+  async getLastSessionCheck(): Promise<SessionRevalidatedEvent | null> {
+    // Sessions are not revalidated on resume on web
+    return null;
+  }
+
+  async getCachedAvatar(options: CachedAvatarOptions): Promise<CachedAvatar> {
+    // The browser HTTP cache already handles this on web
+    return { url: options.url, path: '' };
+  }
 }